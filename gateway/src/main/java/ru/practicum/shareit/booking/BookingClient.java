@@ -7,10 +7,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionsDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -36,25 +38,29 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
     }
 
+    public ResponseEntity<Object> approveBookings(BookingDecisionsDto decisions, long userId) {
+        return patch("/batch", userId, decisions);
+    }
+
     public ResponseEntity<Object> getBooking(long bookingId, long userId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(BookingState state, long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getUserBookings(BookingState state, long userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("?state={state}&from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(BookingState state, long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getOwnerBookings(BookingState state, long userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("/owner?state={state}&from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionsDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 
@@ -37,6 +38,14 @@ public class BookingController {
         return bookingClient.approveBooking(bookingId, userId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> approveBookings(@Valid @RequestBody BookingDecisionsDto decisions,
+                                                  @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
+        log.info("Получен запрос на подтверждение {} бронирований от пользователя {}",
+                decisions.getDecisions().size(), userId);
+        return bookingClient.approveBookings(decisions, userId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBooking(@PathVariable @Positive long bookingId,
                                              @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
@@ -49,9 +58,10 @@ public class BookingController {
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(required = false, defaultValue = "10") @Positive int size,
             @RequestParam(required = false, defaultValue = "ALL") @NotNull BookingState state,
+            @RequestParam(required = false) String cursor,
             @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
         log.info("Запрос на получение бронирований типа {} пользователя {}", state, userId);
-        return bookingClient.getUserBookings(state, userId, from, size);
+        return bookingClient.getUserBookings(state, userId, from, size, cursor);
     }
 
     @GetMapping("/owner")
@@ -59,8 +69,9 @@ public class BookingController {
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(required = false, defaultValue = "10") @Positive int size,
             @RequestParam(required = false, defaultValue = "ALL") BookingState state,
+            @RequestParam(required = false) String cursor,
             @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
         log.info("Запрос на получение бронирований типа {} владельца вещей {}", state, userId);
-        return bookingClient.getOwnerBookings(state, userId, from, size);
+        return bookingClient.getOwnerBookings(state, userId, from, size, cursor);
     }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// Решения владельца по нескольким бронированиям, применяются сервером в одной транзакции
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionsDto {
+    @NotEmpty
+    @Size(max = 100)
+    private List<@Valid @NotNull BookingDecisionDto> decisions;
+}
@@ -79,6 +79,16 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    // Добавляет к пути необязательный курсор страницы, курсор следующей страницы сервер вернет в заголовке X-Next-Cursor
+    protected String withCursor(String path, @Nullable String cursor, Map<String, Object> parameters) {
+        if (cursor == null) {
+            return path;
+        }
+
+        parameters.put("cursor", cursor);
+        return path + "&cursor={cursor}";
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
@@ -5,12 +5,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -39,23 +42,43 @@ public class ItemClient extends BaseClient {
         return get("/" + id, userId);
     }
 
-    public ResponseEntity<Object> getAllUserItems(long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllUserItems(long userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
+        ));
 
-        return get("?from={from}&size={size}", userId, parameters);
+        return get(withCursor("?from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(String text, int from, int size, long userId) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> searchItems(String text, int from, int size, String cursor, long userId) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from,
                 "size", size
+        ));
+
+        return get(withCursor("/search?text={text}&from={from}&size={size}", cursor, parameters), userId, parameters);
+    }
+
+    public ResponseEntity<Object> getAvailability(long id, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> parameters = Map.of(
+                "start", start,
+                "end", end
         );
 
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/" + id + "/availability?start={start}&end={end}", null, parameters);
+    }
+
+    public ResponseEntity<Object> getNextFree(long id, @Nullable LocalDateTime from, long minutes) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("minutes", minutes));
+
+        if (from == null) {
+            return get("/" + id + "/next-free?minutes={minutes}", null, parameters);
+        }
+
+        parameters.put("from", from);
+        return get("/" + id + "/next-free?minutes={minutes}&from={from}", null, parameters);
     }
 
     public ResponseEntity<Object> addComment(long itemId, long userId, CommentDto commentDto) {
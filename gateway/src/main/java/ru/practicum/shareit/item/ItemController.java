@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -9,9 +10,11 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Future;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping(path = "/items")
@@ -49,9 +52,10 @@ public class ItemController {
                                                   @PositiveOrZero int from,
                                                   @RequestParam(required = false, defaultValue = "10")
                                                   @Positive int size,
+                                                  @RequestParam(required = false) String cursor,
                                                   @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
         log.info("Получен запрос все вещей пользователя id = {}", userId);
-        return itemClient.getAllUserItems(userId, from, size);
+        return itemClient.getAllUserItems(userId, from, size, cursor);
     }
 
     @GetMapping("/search")
@@ -59,10 +63,33 @@ public class ItemController {
                                                @PositiveOrZero int from,
                                                @RequestParam(required = false, defaultValue = "10")
                                                @Positive int size,
+                                               @RequestParam(required = false) String cursor,
                                                @RequestParam @NotNull String text,
                                                @RequestHeader(value = "X-Sharer-User-Id", required = false, defaultValue = "1") long userId) {
         log.info("Получен запрос на поиск вещи = {}", text);
-        return itemClient.searchItems(text, from, size, userId);
+        return itemClient.searchItems(text, from, size, cursor, userId);
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable @Positive long id,
+                                                  @RequestParam @NotNull
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime start,
+                                                  @RequestParam @NotNull @Future
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime end) {
+        log.info("Получен запрос занятости вещи id = {} с {} по {}", id, start, end);
+        return itemClient.getAvailability(id, start, end);
+    }
+
+    @GetMapping("/{id}/next-free")
+    public ResponseEntity<Object> getNextFree(@PathVariable @Positive long id,
+                                              @RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                              LocalDateTime from,
+                                              @RequestParam @Positive long minutes) {
+        log.info("Получен запрос свободного окна вещи id = {} на {} минут с {}", id, minutes, from);
+        return itemClient.getNextFree(id, from, minutes);
     }
 
     @PostMapping("/{itemId}/comment")
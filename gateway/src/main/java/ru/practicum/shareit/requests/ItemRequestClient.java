@@ -10,6 +10,7 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -34,12 +35,12 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequestPagination(int from, int size, long userId) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllRequestPagination(int from, int size, String cursor, long userId) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("/all?from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 
     public ResponseEntity<Object> getRequest(long requestId, long userId) {
@@ -38,10 +38,11 @@ public class ItemRequestController {
                                                  @PositiveOrZero int from,
                                                  @RequestParam(required = false, defaultValue = "10")
                                                  @Positive int size,
+                                                 @RequestParam(required = false) String cursor,
                                                  @RequestHeader("X-Sharer-User-Id") @Positive long userId) {
         log.info("Получение всех запросов на вещи начиная с {}\n " +
                 "Элементов в странице {}", from, size);
-        return itemRequestClient.getAllRequestPagination(from, size, userId);
+        return itemRequestClient.getAllRequestPagination(from, size, cursor, userId);
     }
 
     @GetMapping("/{requestId}")
@@ -381,7 +381,7 @@ class BookingControllerTest {
     void correctGetAllUserBookings() throws Exception {
         Mockito
                 .when(mokBookingClient.getUserBookings(
-                        Mockito.any(BookingState.class), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt()))
+                        Mockito.any(BookingState.class), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(), Mockito.isNull()))
                 .thenReturn(new ResponseEntity<>(List.of(bodyToResponse), HttpStatus.OK));
 
         mvc.perform(get("/bookings")
@@ -578,7 +578,7 @@ class BookingControllerTest {
     void correctGetAllOwnerBookings() throws Exception {
         Mockito
                 .when(mokBookingClient.getOwnerBookings(
-                        Mockito.any(BookingState.class), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt()))
+                        Mockito.any(BookingState.class), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(), Mockito.isNull()))
                 .thenReturn(new ResponseEntity<>(List.of(bodyToResponse), HttpStatus.OK));
 
         mvc.perform(get("/bookings/owner")
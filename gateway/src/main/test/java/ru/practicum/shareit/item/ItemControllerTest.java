@@ -365,7 +365,7 @@ class ItemControllerTest {
     @Test
     void getAllUserItemsTest() throws Exception {
         Mockito
-                .when(mokItemClient.getAllUserItems(1L, 0, 10))
+                .when(mokItemClient.getAllUserItems(1L, 0, 10, null))
                 .thenReturn(new ResponseEntity<>(List.of(itemBookingDtoBody), HttpStatus.OK));
 
         mvc.perform(get("/items")
@@ -403,9 +403,9 @@ class ItemControllerTest {
                 .andExpect(status().isOk());
 
         Mockito.verify(mokItemClient, Mockito.times(1))
-                .getAllUserItems(1L, 0, 10);
+                .getAllUserItems(1L, 0, 10, null);
         Mockito.verify(mokItemClient, Mockito.times(1))
-                .getAllUserItems(1L, 0, 1);
+                .getAllUserItems(1L, 0, 1, null);
     }
 
     @Test
@@ -445,7 +445,7 @@ class ItemControllerTest {
     void correctSearchTest() throws Exception {
         Mockito
                 .when(mokItemClient.searchItems(
-                        Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyLong()))
+                        Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.isNull(), Mockito.anyLong()))
                 .thenReturn(new ResponseEntity<>(List.of(itemDtoBody), HttpStatus.OK));
 
         mvc.perform(get("/items/search?text= Вещь ")
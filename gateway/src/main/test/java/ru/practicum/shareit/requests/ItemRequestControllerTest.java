@@ -182,7 +182,7 @@ class ItemRequestControllerTest {
     @Test
     void getAllRequestsTest() throws Exception {
         Mockito
-                .when(mokRequestClient.getAllRequestPagination(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyLong()))
+                .when(mokRequestClient.getAllRequestPagination(Mockito.anyInt(), Mockito.anyInt(), Mockito.isNull(), Mockito.anyLong()))
                 .thenReturn(new ResponseEntity<>(List.of(requestDtoBody), HttpStatus.OK));
 
         mvc.perform(get("/requests/all")
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.RestClientTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import ru.practicum.shareit.booking.dto.BookingState;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@RestClientTest(BookingClient.class)
+class BookingClientTest {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private BookingClient bookingClient;
+
+    @Autowired
+    private MockRestServiceServer server;
+
+    @Test
+    void getUserBookingsWithCursorTest() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(NEXT_CURSOR_HEADER, "next");
+
+        server.expect(requestTo("http://localhost:9090/bookings?state=ALL&from=0&size=10&cursor=current"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> response = bookingClient.getUserBookings(BookingState.ALL, 1L, 0, 10, "current");
+
+        server.verify();
+        // Курсор следующей страницы возвращается клиенту вместе с ответом сервера
+        assertEquals("next", response.getHeaders().getFirst(NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getOwnerBookingsWithoutCursorTest() {
+        server.expect(requestTo("http://localhost:9090/bookings/owner?state=WAITING&from=20&size=10"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = bookingClient.getOwnerBookings(BookingState.WAITING, 1L, 20, 10, null);
+
+        server.verify();
+        assertNull(response.getHeaders().getFirst(NEXT_CURSOR_HEADER));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.RestClientTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@RestClientTest(ItemClient.class)
+class ItemClientTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0, 30);
+    private static final LocalDateTime END = LocalDateTime.of(2030, 1, 2, 10, 0, 30);
+
+    @Autowired
+    private ItemClient itemClient;
+
+    @Autowired
+    private MockRestServiceServer server;
+
+    // Значения параметров кодируются целиком, двоеточия в датах уходят как %3A
+    @Test
+    void getAvailabilityTest() {
+        server.expect(requestTo("http://localhost:9090/items/1/availability"
+                        + "?start=2030-01-01T10%3A00%3A30&end=2030-01-02T10%3A00%3A30"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"itemId\":1,\"available\":true}", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = itemClient.getAvailability(1L, START, END);
+
+        server.verify();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void getNextFreeWithFromTest() {
+        server.expect(requestTo("http://localhost:9090/items/1/next-free?minutes=60&from=2030-01-01T10%3A00%3A30"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"itemId\":1}", MediaType.APPLICATION_JSON));
+
+        itemClient.getNextFree(1L, START, 60);
+
+        server.verify();
+    }
+
+    @Test
+    void getNextFreeWithoutFromTest() {
+        server.expect(requestTo("http://localhost:9090/items/1/next-free?minutes=60"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        ResponseEntity<Object> response = itemClient.getNextFree(1L, null, 60);
+
+        server.verify();
+        // Ошибка сервера возвращается клиенту как есть
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.util.NestedServletException;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ItemController.class)
+class ItemControllerTest {
+    @MockBean
+    private ItemClient mokItemClient;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void getAvailabilityWithPastStartTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).withNano(0);
+        LocalDateTime end = LocalDateTime.now().plusDays(1).withNano(0);
+
+        Mockito
+                .when(mokItemClient.getAvailability(1L, start, end))
+                .thenReturn(ResponseEntity.ok(Map.of("itemId", 1)));
+
+        // Начало в прошлом сервер сдвигает на текущий момент, шлюз передает его без проверки
+        mvc.perform(get("/items/1/availability")
+                        .param("start", start.toString())
+                        .param("end", end.toString()))
+                .andExpect(status().isOk());
+
+        Mockito.verify(mokItemClient, Mockito.times(1))
+                .getAvailability(1L, start, end);
+    }
+
+    @Test
+    void getAvailabilityWithPastEndTest() {
+        LocalDateTime start = LocalDateTime.now().minusDays(2).withNano(0);
+        LocalDateTime end = LocalDateTime.now().minusDays(1).withNano(0);
+
+        assertThrows(NestedServletException.class, () -> mvc.perform(get("/items/1/availability")
+                .param("start", start.toString())
+                .param("end", end.toString())));
+        Mockito.verifyNoInteractions(mokItemClient);
+    }
+
+    @Test
+    void getNextFreeWithoutFromTest() throws Exception {
+        Mockito
+                .when(mokItemClient.getNextFree(1L, null, 60))
+                .thenReturn(ResponseEntity.ok(Map.of("itemId", 1)));
+
+        mvc.perform(get("/items/1/next-free")
+                        .param("minutes", "60"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(mokItemClient, Mockito.times(1))
+                .getNextFree(1L, null, 60);
+    }
+
+    @Test
+    void getNextFreeWithNotPositiveMinutesTest() {
+        assertThrows(NestedServletException.class, () -> mvc.perform(get("/items/1/next-free")
+                .param("minutes", "0")));
+        Mockito.verifyNoInteractions(mokItemClient);
+    }
+}
@@ -3,11 +3,15 @@ package ru.practicum.shareit.booking;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionsDto;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -36,6 +40,14 @@ public class BookingController {
         return bookingService.approveBooking(bookingId, userId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> approveBookings(@RequestBody BookingDecisionsDto decisions,
+                                                          @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Получен запрос на подтверждение {} бронирований от пользователя {}",
+                decisions.getDecisions().size(), userId);
+        return bookingService.approveBookings(decisions.getDecisions(), userId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseBookingDto getBooking(@PathVariable long bookingId,
                                          @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -48,9 +60,21 @@ public class BookingController {
             @RequestParam(required = false, defaultValue = "0") int from,
             @RequestParam(required = false, defaultValue = "10") int size,
             @RequestParam(required = false, defaultValue = "ALL") State state,
-            @RequestHeader("X-Sharer-User-Id") long userId) {
+            @RequestParam(required = false) String cursor,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            HttpServletResponse response) {
         log.info("Запрос на получение бронирований типа {} пользователя {}", state, userId);
-        return bookingService.getUserBookings(state, userId, from, size);
+        List<ResponseBookingDto> bookings;
+
+        if (cursor == null) {
+            bookings = bookingService.getUserBookings(state, userId, from, size);
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            bookings = bookingService.getUserBookingsAfter(state, userId, after.requireTime(), after.getId(), size);
+        }
+
+        Cursor.setNext(response, bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+        return bookings;
     }
 
     @GetMapping("/owner")
@@ -58,8 +82,20 @@ public class BookingController {
             @RequestParam(required = false, defaultValue = "0") int from,
             @RequestParam(required = false, defaultValue = "10") int size,
             @RequestParam(required = false, defaultValue = "ALL") State state,
-            @RequestHeader("X-Sharer-User-Id") long userId) {
+            @RequestParam(required = false) String cursor,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            HttpServletResponse response) {
         log.info("Запрос на получение бронирований типа {} владельца вещей {}", state, userId);
-        return bookingService.getOwnerBookings(state, userId, from, size);
+        List<ResponseBookingDto> bookings;
+
+        if (cursor == null) {
+            bookings = bookingService.getOwnerBookings(state, userId, from, size);
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            bookings = bookingService.getOwnerBookingsAfter(state, userId, after.requireTime(), after.getId(), size);
+        }
+
+        Cursor.setNext(response, bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+        return bookings;
     }
 }
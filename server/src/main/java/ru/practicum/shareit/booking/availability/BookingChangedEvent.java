@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.availability;
+
+import lombok.Data;
+import ru.practicum.shareit.booking.status.BookingStatus;
+
+// Бронирование создано или сменило статус
+@Data
+public class BookingChangedEvent {
+    private final long itemId;
+    private final BookingInterval interval;
+    private final BookingStatus status;
+}
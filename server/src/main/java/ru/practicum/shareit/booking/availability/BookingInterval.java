@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.availability;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Даты бронирования [start, end), занимающего вещь
+@Data
+public class BookingInterval {
+    private final long bookingId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.booking.availability;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.datasource.ReplicaRoutingDataSource;
+import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Занятость вещей в памяти сервера для GET /items/{id}/availability и /items/{id}/next-free.
+ * Интервалы ожидающих и подтвержденных бронирований вещи загружаются из основной БД при первом запросе
+ * и дальше меняются событиями BookingChangedEvent после фиксации транзакции, без обращений к БД.
+ * Загружаются только бронирования, не закончившиеся к моменту загрузки, поэтому начало периода в запросе
+ * не должно быть раньше текущего времени.
+ * Загрузка, во время которой пришло событие о бронировании вещей той же полосы, в индекс не кладется:
+ * прочитанное до фиксации бронирование иначе потерялось бы. При переполнении вытесняется произвольная вещь.
+ * Статистика доступна в /actuator/metrics/cache.gets, cache.evictions и cache.size с тегом cache=item-availability.
+ */
+@Component
+@Slf4j
+public class ItemAvailabilityIndex implements MeterBinder {
+    static final String NAME = "item-availability";
+    private static final int STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final int maxItems;
+    private final Map<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+    // Число событий по вещам каждой полосы, загрузка сравнивает его до и после чтения из БД
+    private final AtomicLongArray changes = new AtomicLongArray(STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ItemAvailabilityIndex(BookingRepository bookingRepository,
+                                 ItemRepository itemRepository,
+                                 @Value("${shareit.availability.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.itemRepository = itemRepository;
+        this.maxItems = maxItems;
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end) {
+        return intervals(itemId).isFree(start, end);
+    }
+
+    public LocalDateTime nextFree(long itemId, LocalDateTime from, Duration duration) {
+        return intervals(itemId).nextFree(from, duration);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingInterval interval = event.getInterval();
+        LocalDateTime now = LocalDateTime.now();
+
+        log.debug("Обновление занятости вещи id = {}, бронирование id = {}", event.getItemId(),
+                interval.getBookingId());
+        items.compute(event.getItemId(), (itemId, current) -> {
+            changes.incrementAndGet(stripe(itemId));
+
+            if (current == null) {
+                return null;
+            }
+
+            return BookingStatus.OCCUPYING.contains(event.getStatus())
+                    ? current.with(interval, now)
+                    : current.without(interval.getBookingId(), now);
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", NAME, "result", "hit")
+                .description("Количество чтений, найденных в кэше")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", NAME, "result", "miss")
+                .description("Количество чтений, потребовавших загрузки из БД")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", NAME)
+                .description("Количество записей, вытесненных по размеру")
+                .register(registry);
+        Gauge.builder("cache.size", items, Map::size)
+                .tag("cache", NAME)
+                .description("Количество записей в кэше")
+                .register(registry);
+    }
+
+    private ItemIntervals intervals(long itemId) {
+        ItemIntervals cached = items.get(itemId);
+
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+
+        return ReplicaRoutingDataSource.onPrimary(() -> load(itemId));
+    }
+
+    private ItemIntervals load(long itemId) {
+        long changesBefore = changes.get(stripe(itemId));
+
+        if (!itemRepository.existsById(itemId)) {
+            throw new StorageException("Вещи не существует");
+        }
+
+        ItemIntervals loaded = ItemIntervals.of(bookingRepository.findIntervals(itemId, BookingStatus.OCCUPYING,
+                LocalDateTime.now()));
+
+        evictIfFull();
+
+        // Под блокировкой ключа: событие либо уже учтено в счетчике, либо придет после и изменит загруженное
+        ItemIntervals result = items.compute(itemId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+
+            return changes.get(stripe(id)) == changesBefore ? loaded : null;
+        });
+
+        return result != null ? result : loaded;
+    }
+
+    private void evictIfFull() {
+        Iterator<Long> iterator = items.keySet().iterator();
+
+        while (items.size() >= maxItems && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripe(long itemId) {
+        return (int) Math.floorMod(itemId, (long) STRIPES);
+    }
+}
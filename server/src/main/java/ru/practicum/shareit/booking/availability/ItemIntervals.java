@@ -0,0 +1,131 @@
+package ru.practicum.shareit.booking.availability;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Неизменяемый набор занимающих вещь интервалов: массив, упорядоченный по началу, и наибольший конец
+ * среди интервалов с начала массива до каждой позиции (дерево интервалов, уложенное в массив).
+ * Пересечение с периодом находится двоичным поиском, свободное окно - двоичным поиском и проходом
+ * только по интервалам, которые могут его закрыть. Изменение создает новый набор, поэтому чтения
+ * идут без блокировок. Интервалы могут пересекаться (данные до ограничения bookings_no_overlap).
+ */
+class ItemIntervals {
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::getStart)
+            .thenComparingLong(BookingInterval::getBookingId);
+
+    private final BookingInterval[] intervals;
+    private final LocalDateTime[] maxEnds;
+
+    private ItemIntervals(BookingInterval[] intervals) {
+        this.intervals = intervals;
+        this.maxEnds = new LocalDateTime[intervals.length];
+
+        for (int i = 0; i < intervals.length; i++) {
+            LocalDateTime end = intervals[i].getEnd();
+            maxEnds[i] = i > 0 && maxEnds[i - 1].isAfter(end) ? maxEnds[i - 1] : end;
+        }
+    }
+
+    static ItemIntervals of(Collection<BookingInterval> intervals) {
+        BookingInterval[] sorted = intervals.toArray(new BookingInterval[0]);
+        Arrays.sort(sorted, ORDER);
+
+        return new ItemIntervals(sorted);
+    }
+
+    // Набор с добавленным (или замененным по id бронирования) интервалом, без закончившихся к now
+    ItemIntervals with(BookingInterval interval, LocalDateTime now) {
+        List<BookingInterval> result = remaining(interval.getBookingId(), now);
+        result.add(interval);
+
+        return of(result);
+    }
+
+    // Набор без интервала бронирования и без закончившихся к now
+    ItemIntervals without(long bookingId, LocalDateTime now) {
+        return of(remaining(bookingId, now));
+    }
+
+    // Свободна ли вещь на период [start, end)
+    boolean isFree(LocalDateTime start, LocalDateTime end) {
+        int startingBefore = firstStartingFrom(end);
+
+        return startingBefore == 0 || !maxEnds[startingBefore - 1].isAfter(start);
+    }
+
+    // Начало первого свободного окна длительностью duration не раньше from
+    LocalDateTime nextFree(LocalDateTime from, Duration duration) {
+        LocalDateTime candidate = from;
+
+        // Интервалы левее этой позиции закончились не позже from и окну не мешают
+        for (int i = firstEndingAfter(from); i < intervals.length; i++) {
+            if (!intervals[i].getStart().isBefore(candidate.plus(duration))) {
+                break;
+            }
+
+            if (intervals[i].getEnd().isAfter(candidate)) {
+                candidate = intervals[i].getEnd();
+            }
+        }
+
+        return candidate;
+    }
+
+    int size() {
+        return intervals.length;
+    }
+
+    private List<BookingInterval> remaining(long bookingId, LocalDateTime now) {
+        List<BookingInterval> result = new ArrayList<>(intervals.length + 1);
+
+        for (BookingInterval interval : intervals) {
+            if (interval.getBookingId() != bookingId && interval.getEnd().isAfter(now)) {
+                result.add(interval);
+            }
+        }
+
+        return result;
+    }
+
+    // Число интервалов, начинающихся раньше time
+    private int firstStartingFrom(LocalDateTime time) {
+        int low = 0;
+        int high = intervals.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (intervals[middle].getStart().isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // Первая позиция, на которой наибольший конец позже time
+    private int firstEndingAfter(LocalDateTime time) {
+        int low = 0;
+        int high = maxEnds.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (maxEnds[middle].isAfter(time)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return low;
+    }
+}
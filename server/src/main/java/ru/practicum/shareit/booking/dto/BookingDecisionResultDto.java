@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.status.BookingStatus;
+
+// Результат решения по бронированию: новый статус или причина, по которой статус не изменен
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionResultDto {
+    private long bookingId;
+    private BookingStatus status;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Решения владельца по нескольким бронированиям для PATCH /bookings/batch
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionsDto {
+    private List<BookingDecisionDto> decisions;
+}
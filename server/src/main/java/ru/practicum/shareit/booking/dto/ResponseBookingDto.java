@@ -21,4 +21,12 @@ public class ResponseBookingDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+
+    // Для выборки ответа одним запросом без сущностей (BookingRepositoryCustom.findResponsesByFilter)
+    public ResponseBookingDto(long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                              long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                              Long itemRequestId, long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail), status);
+    }
 }
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.booking.lock;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Полосатая таблица блокировок вещей для развертывания на одном узле без ограничения bookings_no_overlap:
+ * бронирования одной вещи создаются по очереди, поэтому проверка пересечения не гонится с параллельными
+ * запросами без SELECT ... FOR UPDATE в БД. Подтверждению блокировка не нужна: статус меняется условным UPDATE.
+ * Вещь попадает в полосу по остатку от деления id, вещи одной полосы блокируют друг друга.
+ * Блокировка берется внутри транзакции и снимается после ее фиксации или отката: иначе следующий запрос
+ * проверил бы пересечение до того, как станет видно бронирование предыдущего.
+ * Включается свойством shareit.booking.item-locks.enabled, при нескольких узлах не защищает.
+ * Статистика по полосам доступна в /actuator/metrics/booking.item.lock.acquisitions,
+ * booking.item.lock.wait (только ожидавшие захваты) и booking.item.lock.queue с тегом stripe.
+ */
+@Component
+public class ItemLocks implements MeterBinder {
+    private final boolean enabled;
+    private final Stripe[] stripes;
+
+    @Autowired
+    public ItemLocks(@Value("${shareit.booking.item-locks.enabled:false}") boolean enabled,
+                     @Value("${shareit.booking.item-locks.stripes:64}") int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Число полос блокировок должно быть положительным");
+        }
+
+        this.enabled = enabled;
+        this.stripes = new Stripe[stripes];
+
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    // Блокирует вещь до конца текущей транзакции. Возвращает false, если блокировки выключены
+    public boolean lockUntilCompletion(long itemId) {
+        if (!enabled) {
+            return false;
+        }
+
+        lockUntilCompletion(stripes[stripe(itemId)]);
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < stripes.length; i++) {
+            String stripe = String.valueOf(i);
+
+            FunctionCounter.builder("booking.item.lock.acquisitions", stripes[i].acquisitions, LongAdder::sum)
+                    .tag("stripe", stripe)
+                    .description("Количество захватов блокировки полосы")
+                    .register(registry);
+            FunctionTimer.builder("booking.item.lock.wait", stripes[i],
+                            value -> value.contended.sum(), value -> value.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                    .tag("stripe", stripe)
+                    .description("Ожидание блокировки полосы, занятой другой транзакцией")
+                    .register(registry);
+            Gauge.builder("booking.item.lock.queue", stripes[i].lock, ReentrantLock::getQueueLength)
+                    .tag("stripe", stripe)
+                    .description("Количество потоков, ожидающих блокировку полосы")
+                    .register(registry);
+        }
+    }
+
+    private void lockUntilCompletion(Stripe stripe) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи берется только внутри транзакции");
+        }
+
+        if (!stripe.lock.tryLock()) {
+            long start = System.nanoTime();
+            stripe.lock.lock();
+            stripe.contended.increment();
+            stripe.waitNanos.add(System.nanoTime() - start);
+        }
+
+        stripe.acquisitions.increment();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.lock.unlock();
+            }
+        });
+    }
+
+    private int stripe(long itemId) {
+        return (int) Math.floorMod(itemId, (long) stripes.length);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+    }
+}
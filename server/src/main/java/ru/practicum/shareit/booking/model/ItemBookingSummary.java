@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Последнее и следующее бронирования вещи, поддерживаются при создании бронирований
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "item_booking_summary")
+// Сводка вместе с бронированиями, их вещами, владельцами и авторами одним запросом
+@NamedEntityGraph(name = ItemBookingSummary.BOOKINGS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "lastBooking", subgraph = "booking"),
+                @NamedAttributeNode(value = "nextBooking", subgraph = "booking")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "booking", attributeNodes = {
+                        @NamedAttributeNode(value = "item", subgraph = "item"),
+                        @NamedAttributeNode("booker")
+                }),
+                @NamedSubgraph(name = "item", attributeNodes = @NamedAttributeNode("owner"))
+        })
+public class ItemBookingSummary {
+    public static final String BOOKINGS_GRAPH = "ItemBookingSummary.bookings";
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id", referencedColumnName = "booking_id")
+    private Booking lastBooking;
+
+    @Column(name = "last_end")
+    private LocalDateTime lastEnd;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id", referencedColumnName = "booking_id")
+    private Booking nextBooking;
+
+    @Column(name = "next_start")
+    private LocalDateTime nextStart;
+
+    public static ItemBookingSummary of(long itemId, Booking lastBooking, Booking nextBooking) {
+        return new ItemBookingSummary(itemId,
+                lastBooking,
+                lastBooking != null ? lastBooking.getEnd() : null,
+                nextBooking,
+                nextBooking != null ? nextBooking.getStart() : null);
+    }
+}
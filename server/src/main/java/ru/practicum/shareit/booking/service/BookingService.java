@@ -1,9 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.status.State;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
@@ -11,9 +14,17 @@ public interface BookingService {
 
     ResponseBookingDto approveBooking(long bookingId, long userId, boolean approved);
 
+    List<BookingDecisionResultDto> approveBookings(List<BookingDecisionDto> decisions, long userId);
+
     ResponseBookingDto getBooking(long bookingId, long userId);
 
     List<ResponseBookingDto> getUserBookings(State state, long userId, int from, int size);
 
     List<ResponseBookingDto> getOwnerBookings(State state, long userId, int from, int size);
+
+    List<ResponseBookingDto> getUserBookingsAfter(State state, long userId,
+                                                  LocalDateTime afterStart, long afterId, int size);
+
+    List<ResponseBookingDto> getOwnerBookingsAfter(State state, long userId,
+                                                   LocalDateTime afterStart, long afterId, int size);
 }
@@ -2,59 +2,81 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.availability.BookingChangedEvent;
+import ru.practicum.shareit.booking.availability.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.booking.storage.BookingFilter;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.exeption.ConflictException;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.exeption.ValidationException;
+import ru.practicum.shareit.item.cache.ItemBookingsChangedEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
-import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
+import ru.practicum.shareit.user.model.User;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class DbBookingService implements BookingService {
-    private final UserRepository userRepository;
+    private static final String OVERLAP_MESSAGE = "Вещь уже забронирована на пересекающиеся даты";
+    // Нарушение ограничения исключения в PostgreSQL (bookings_no_overlap)
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final EntityLookup entityLookup;
+    private final ItemLocks itemLocks;
     private final BookingMapper bookingMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public DbBookingService(UserRepository userRepository,
-                            ItemRepository itemRepository,
+    public DbBookingService(ItemRepository itemRepository,
                             BookingRepository bookingRepository,
-                            BookingMapper bookingMapper) {
-        this.userRepository = userRepository;
+                            ItemBookingSummaryRepository summaryRepository,
+                            EntityLookup entityLookup,
+                            ItemLocks itemLocks,
+                            BookingMapper bookingMapper,
+                            ApplicationEventPublisher eventPublisher) {
         this.itemRepository = itemRepository;
         this.bookingRepository = bookingRepository;
+        this.summaryRepository = summaryRepository;
+        this.entityLookup = entityLookup;
+        this.itemLocks = itemLocks;
         this.bookingMapper = bookingMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public ResponseBookingDto create(RequestBookingDto bookingDto, long bookerId) {
-        if (!userRepository.existsById(bookerId)) {
-            throw new StorageException("Пользователя не существует");
-        }
-        if (!itemRepository.existsById(bookingDto.getItemId())) {
-            throw new StorageException("Вещи не существует");
-        }
-
-        Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(
-                () -> new StorageException("Ошибка получения вещи"));
+        User booker = entityLookup.getUser(bookerId, "Пользователя не существует");
+        Item item = entityLookup.getItem(bookingDto.getItemId(), "Вещи не существует");
 
         if (!item.getAvailable()) {
             throw new ValidationException("Вещь не доступна для бронирования");
@@ -62,49 +84,89 @@ public class DbBookingService implements BookingService {
             throw new StorageException("Вещь не доступна для бронирования");
         }
 
+        itemLocks.lockUntilCompletion(item.getId());
+
+        if (bookingRepository.existsByItem_IdAndStatusInAndStartBeforeAndEndAfter(item.getId(),
+                BookingStatus.OCCUPYING, bookingDto.getEnd(), bookingDto.getStart())) {
+            throw new ConflictException(OVERLAP_MESSAGE);
+        }
+
         Booking booking = bookingMapper.toBooking(bookingDto);
         booking.setItem(item);
-        booking.setBooker(userRepository.findById(bookerId).orElseThrow(
-                () -> new StorageException("Ошибка получения пользователя")));
+        booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
 
-        return bookingMapper.toResponseBooking(bookingRepository.save(booking));
+        Booking savedBooking = saveNotOverlapping(booking);
+        summaryRepository.updateLastBooking(item.getId(), savedBooking);
+        summaryRepository.updateNextBooking(item.getId(), savedBooking);
+        eventPublisher.publishEvent(new ItemBookingsChangedEvent(item.getId()));
+        eventPublisher.publishEvent(toChangedEvent(savedBooking));
+
+        return bookingMapper.toResponseBooking(savedBooking);
     }
 
     @Override
+    @Transactional
     public ResponseBookingDto approveBooking(long bookingId, long userId, boolean approved) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователь не найден");
-        }
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
 
-        if (!bookingRepository.existsById(bookingId)) {
-            throw new StorageException("Бронирования не существует");
+        // Статус меняется условным UPDATE: из двух параллельных подтверждений строку изменит только одно.
+        // Несуществующий пользователь не может быть владельцем вещи, отдельная проверка не нужна
+        if (bookingRepository.updateWaitingStatus(bookingId, userId, status) == 0) {
+            throw approveFailure(bookingId, userId);
         }
 
-        Booking booking = getBookingFromOptional(bookingRepository.findById(bookingId));
+        // Обновление очистило контекст, а памятка запроса бронирования не хранит: строка читается заново
+        // с новым статусом и версией
+        Booking booking = entityLookup.getBooking(bookingId, "Бронирования не существует");
+        afterDecisions(List.of(booking));
 
-        if (booking.getStatus() != BookingStatus.WAITING) {
-            throw new ValidationException("Изменение статуса не возможно");
+        return bookingMapper.toResponseBooking(booking);
+    }
+
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> approveBookings(List<BookingDecisionDto> decisions, long userId) {
+        Map<Long, Boolean> approvedById = new LinkedHashMap<>();
+
+        for (BookingDecisionDto decision : decisions) {
+            if (approvedById.put(decision.getBookingId(), decision.isApproved()) != null) {
+                throw new ValidationException("Решение по бронированию " + decision.getBookingId() +
+                        " указано несколько раз");
+            }
         }
 
-        if (booking.getItem().getOwner().getId() != userId) {
-            throw new StorageException("Подтвердить бронирование может только владелец вещи");
-        } else if (approved) {
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
+        // Все бронирования читаются одним запросом, отклоненные проверками получают ошибку в ответе
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdIn(approvedById.keySet()).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<BookingDecisionResultDto> results = new ArrayList<>(approvedById.size());
+        List<Booking> waiting = new ArrayList<>();
+
+        approvedById.forEach((bookingId, approved) -> {
+            Booking booking = bookings.get(bookingId);
+            String error = decisionError(booking, userId);
+
+            if (error == null) {
+                waiting.add(booking);
+                results.add(new BookingDecisionResultDto(bookingId, decidedStatus(approved), null));
+            } else {
+                // Статус показывается только владельцу вещи, иначе через пакет можно узнать статус чужого бронирования
+                results.add(new BookingDecisionResultDto(bookingId,
+                        isItemOwner(booking, userId) ? booking.getStatus() : null, error));
+            }
+        });
+
+        if (!waiting.isEmpty()) {
+            applyDecisions(waiting, approvedById, userId);
         }
 
-        return bookingMapper.toResponseBooking(bookingRepository.save(booking));
+        return results;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseBookingDto getBooking(long bookingId, long userId) {
-        if (!bookingRepository.existsById(bookingId) || !userRepository.existsById(userId)) {
-            throw new StorageException("Бронирования не существует");
-        }
-
-        Booking booking = getBookingFromOptional(bookingRepository.findById(bookingId));
+        Booking booking = entityLookup.getBooking(bookingId, "Бронирования не существует");
 
         if (userId == booking.getBooker().getId() ||
                 userId == booking.getItem().getOwner().getId()) {
@@ -115,93 +177,148 @@ public class DbBookingService implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseBookingDto> getUserBookings(State state, long userId, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователь не найден");
-        }
-
-        Pageable pageable = PageRequest.of(from / size, size, getSort());
-        List<Booking> bookings = new ArrayList<>();
-
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByBooker_IdIs(userId, pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findByBooker_IdAndEndIsBefore(
-                        userId, LocalDateTime.now(), pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByBooker_IdAndStartIsBeforeAndEndIsAfter(
-                        userId, LocalDateTime.now(), LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByBooker_idAndStartIsAfter(
-                        userId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByBooker_IdAndStatusIs(
-                        userId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByBooker_IdAndStatusIs(
-                        userId, BookingStatus.REJECTED, pageable);
-                break;
-        }
+        entityLookup.getUser(userId, "Пользователь не найден");
 
-        return bookings.stream()
-                .map(bookingMapper::toResponseBooking)
-                .collect(Collectors.toList());
+        return findBookings(state, userId, false, from / size * size, null, null, size);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseBookingDto> getOwnerBookings(State state, long userId, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователь не найден");
-        }
+        entityLookup.getUser(userId, "Пользователь не найден");
 
         if (itemRepository.findAllByOwner_IdOrderById(userId, PageRequest.of(0, 1)).isEmpty()) {
             return new ArrayList<>();
         }
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Booking> bookings = new ArrayList<>();
-
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findOwnerBookings(userId, pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findPastOwnerBookings(userId, LocalDateTime.now(), pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findCurrentOwnerBookings(userId, LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findFutureOwnerBookings(userId, LocalDateTime.now(), pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findOwnerBookings(userId, pageable).stream()
-                        .filter(booking -> booking.getStatus().equals(BookingStatus.WAITING))
-                        .collect(Collectors.toList());
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findOwnerBookings(userId, pageable).stream()
-                        .filter(booking -> booking.getStatus().equals(BookingStatus.REJECTED))
-                        .collect(Collectors.toList());
-                break;
+        return findBookings(state, userId, true, from / size * size, null, null, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResponseBookingDto> getUserBookingsAfter(State state, long userId,
+                                                         LocalDateTime afterStart, long afterId, int size) {
+        entityLookup.getUser(userId, "Пользователь не найден");
+
+        return findBookings(state, userId, false, 0, afterStart, afterId, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResponseBookingDto> getOwnerBookingsAfter(State state, long userId,
+                                                          LocalDateTime afterStart, long afterId, int size) {
+        entityLookup.getUser(userId, "Пользователь не найден");
+
+        return findBookings(state, userId, true, 0, afterStart, afterId, size);
+    }
+
+    private static BookingChangedEvent toChangedEvent(Booking booking) {
+        return new BookingChangedEvent(booking.getItem().getId(),
+                new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd()),
+                booking.getStatus());
+    }
+
+    // Причина, по которой условное обновление статуса не изменило строку. Проверки идут в том же порядке,
+    // что и раньше при чтении перед обновлением; если все прошли, статус сменил параллельный запрос
+    private RuntimeException approveFailure(long bookingId, long userId) {
+        Booking booking = entityLookup.getBooking(bookingId, "Бронирования не существует");
+
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            return new ValidationException("Изменение статуса не возможно");
+        } else if (booking.getItem().getOwner().getId() != userId) {
+            return new StorageException("Подтвердить бронирование может только владелец вещи");
         }
 
-        return bookings.stream()
-                .map(bookingMapper::toResponseBooking)
+        return new ConflictException("Статус бронирования изменен параллельным запросом");
+    }
+
+    private static BookingStatus decidedStatus(boolean approved) {
+        return approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+    }
+
+    // Причина, по которой решение по бронированию из пакета не применяется, или null
+    // Владелец проверяется раньше статуса, чтобы ответ не раскрывал статус чужих бронирований
+    private static String decisionError(Booking booking, long userId) {
+        if (booking == null) {
+            return "Бронирования не существует";
+        } else if (!isItemOwner(booking, userId)) {
+            return "Подтвердить бронирование может только владелец вещи";
+        } else if (booking.getStatus() != BookingStatus.WAITING) {
+            return "Изменение статуса не возможно";
+        }
+
+        return null;
+    }
+
+    private static boolean isItemOwner(Booking booking, long userId) {
+        return booking != null && booking.getItem().getOwner().getId() == userId;
+    }
+
+    // Статусы всех ожидающих бронирований меняются одним UPDATE: бронирования с тем же решением, что у первого,
+    // перечисляются явно, остальные получают другой статус. Если часть строк успел изменить параллельный
+    // запрос, пакет откатывается целиком, чтобы ответ не расходился с БД
+    private void applyDecisions(List<Booking> waiting, Map<Long, Boolean> approvedById, long userId) {
+        List<Long> ids = waiting.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+        boolean firstApproved = approvedById.get(ids.get(0));
+        List<Long> firstIds = ids.stream()
+                .filter(id -> approvedById.get(id) == firstApproved)
                 .collect(Collectors.toList());
+
+        int updated = bookingRepository.updateWaitingStatuses(ids, userId, firstIds,
+                decidedStatus(firstApproved), decidedStatus(!firstApproved));
+
+        if (updated != ids.size()) {
+            throw new ConflictException("Статус части бронирований изменен параллельным запросом, " +
+                    "решения не применены");
+        }
+
+        // Обновление очистило контекст: бронирования читаются заново с новыми статусами и версиями
+        afterDecisions(bookingRepository.findAllByIdIn(ids));
     }
 
-    private Sort getSort() {
-        return Sort.by(Sort.Direction.DESC, "start");
+    // Общее продолжение одиночного и пакетного подтверждения: сброс карточек вещей и обновление занятости.
+    // Сводка последнего и следующего бронирований от статуса не зависит и при подтверждении не меняется
+    private void afterDecisions(List<Booking> decided) {
+        decided.stream()
+                .map(booking -> booking.getItem().getId())
+                .distinct()
+                .forEach(itemId -> eventPublisher.publishEvent(new ItemBookingsChangedEvent(itemId)));
+        decided.forEach(booking -> eventPublisher.publishEvent(toChangedEvent(booking)));
     }
 
-    private Booking getBookingFromOptional(Optional<Booking> bookingOptional) {
-        return bookingOptional.orElseThrow(() -> new StorageException("Ошибка получения бронирования"));
+    // Пересекающееся бронирование, созданное параллельно и не видное проверке выше, отсекает ограничение
+    // исключения bookings_no_overlap: вставка выполняется сразу, чтобы нарушение превратилось в конфликт здесь
+    private Booking saveNotOverlapping(Booking booking) {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                throw new ConflictException(OVERLAP_MESSAGE);
+            }
+
+            throw e;
+        }
+    }
+
+    // Один запрос для любого состояния: время берется один раз на запрос, постраничный вывод по смещению
+    // или по ключу (start, id) - стоимость страницы по ключу такая же, как у первой. Ответ выбирается сразу в DTO
+    private List<ResponseBookingDto> findBookings(State state, long userId, boolean owner, int from,
+                                                  LocalDateTime afterStart, Long afterId, int size) {
+        BookingFilter filter = BookingFilter.builder()
+                .userId(userId)
+                .owner(owner)
+                .state(state)
+                .now(LocalDateTime.now())
+                .afterStart(afterStart)
+                .afterId(afterId)
+                .build();
+
+        return bookingRepository.findResponsesByFilter(filter, from, size);
     }
 }
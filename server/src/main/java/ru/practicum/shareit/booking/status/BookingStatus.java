@@ -1,8 +1,15 @@
 package ru.practicum.shareit.booking.status;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum BookingStatus {
     WAITING,
     APPROVED,
     REJECTED,
-    CANCELED
+    CANCELED;
+
+    // Статусы, в которых бронирование занимает вещь на свои даты
+    public static final Set<BookingStatus> OCCUPYING = Collections.unmodifiableSet(EnumSet.of(WAITING, APPROVED));
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.status.State;
+
+import java.time.LocalDateTime;
+
+// Условия выборки бронирований: чьи бронирования, в каком состоянии на момент now и после какого ключа (start, id)
+@Data
+@Builder
+public class BookingFilter {
+    private final long userId;
+    private final boolean owner;
+    private final State state;
+    private final LocalDateTime now;
+    private final LocalDateTime afterStart;
+    private final Long afterId;
+}
@@ -1,82 +1,74 @@
 package ru.practicum.shareit.booking.storage;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.availability.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.status.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    // Все бронирования пользователя
-    List<Booking> findByBooker_IdIs(long bookerId, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    // Связанные вещь, владелец и автор загружаются тем же запросом, что и бронирования (Booking.DETAILS_GRAPH)
+    @Override
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findById(Long id);
 
-    // Прошлые бронирования
-    List<Booking> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime endDate, Pageable pageable);
+    // Бронирование вещи пользователем с самой ранней датой окончания
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findFirstByBooker_IdAndItem_IdOrderByEndAsc(long bookerId, long itemId);
 
-    // Текущие бронирования
-    List<Booking> findByBooker_IdAndStartIsBeforeAndEndIsAfter(
-            long bookerId, LocalDateTime nowStart, LocalDateTime nowEnd, Pageable pageable);
+    // Есть ли у вещи бронирование в одном из статусов, пересекающееся с полуинтервалом [start, end)
+    boolean existsByItem_IdAndStatusInAndStartBeforeAndEndAfter(long itemId, Collection<BookingStatus> statuses,
+                                                                 LocalDateTime end, LocalDateTime start);
 
-    // Будущие бронирования пользователя
-    List<Booking> findByBooker_idAndStartIsAfter(long bookerId, LocalDateTime now, Pageable pageable);
+    // Смена статуса ожидающего бронирования вещи владельца одним запросом, без предварительного чтения.
+    // Возвращает число измененных строк: 0, если бронирования нет, оно уже не ожидает или вещь чужая.
+    // Контекст очищается, чтобы следующее чтение бронирования вернуло новый статус, а не прочитанный ранее
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ?3, b.version = b.version + 1 " +
+            "where b.id = ?1 and b.status = ru.practicum.shareit.booking.status.BookingStatus.WAITING " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?2)")
+    int updateWaitingStatus(long bookingId, long ownerId, BookingStatus status);
 
-    // Заявки со статусом - status = WAITING, REJECTED
-    List<Booking> findByBooker_IdAndStatusIs(long bookerId, BookingStatus status, Pageable pageable);
+    // Смена статуса ожидающих бронирований вещей владельца одним запросом: бронирования из firstIds получают
+    // статус first, остальные - other. Возвращает число измененных строк. Контекст очищается,
+    // как и при смене статуса одного бронирования
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b " +
+            "set b.status = case when b.id in ?3 then ?4 else ?5 end, b.version = b.version + 1 " +
+            "where b.id in ?1 and b.status = ru.practicum.shareit.booking.status.BookingStatus.WAITING " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?2)")
+    int updateWaitingStatuses(Collection<Long> bookingIds, long ownerId, Collection<Long> firstIds,
+                              BookingStatus first, BookingStatus other);
 
-    @Query(value = "SELECT * " +
-            "FROM bookings " +
-            "WHERE booker_id = ?1 " +
-            "AND item_id = ?2 " +
-            "ORDER BY end_date ASC " +
-            "LIMIT 1;", nativeQuery = true)
-    Optional<Booking> findLastBooker_IdAndItem_Id(long bookerId, long itemId);
+    // Бронирования по id вместе с вещью, владельцем и автором
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByIdIn(Collection<Long> ids);
 
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "INNER JOIN items as i ON b.item_id = i.item_id " +
-            "WHERE i.owner = ?1 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findOwnerBookings(long userId, Pageable pageable);
+    // Даты бронирований вещи в одном из статусов, заканчивающихся позже after
+    @Query("select new ru.practicum.shareit.booking.availability.BookingInterval(b.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.end > ?3")
+    List<BookingInterval> findIntervals(long itemId, Collection<BookingStatus> statuses, LocalDateTime after);
 
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "INNER JOIN items as i ON b.item_id = i.item_id " +
-            "WHERE i.owner = ?1 " +
-            "AND b.end_date < ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findPastOwnerBookings(long userId, LocalDateTime now, Pageable pageable);
+    // Последние бронирования вещей, по одному на вещь (при равенстве дат отбирается в сервисе).
+    // Используются для построения сводки бронирований, если ее еще нет
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.id in ?1 " +
+            "and b.end = (select min(l.end) from Booking l where l.item.id = b.item.id)")
+    List<Booking> findLastBookingsForItems(Collection<Long> itemIds);
 
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "INNER JOIN items as i ON b.item_id = i.item_id " +
-            "WHERE i.owner = ?1 " +
-            "AND ?2 BETWEEN b.start_date AND b.end_date " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findCurrentOwnerBookings(long userId, LocalDateTime now, Pageable pageable);
-
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "INNER JOIN items as i ON b.item_id = i.item_id " +
-            "WHERE i.owner = ?1 " +
-            "AND b.start_date > ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findFutureOwnerBookings(long userId, LocalDateTime now, Pageable pageable);
-
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "WHERE item_id = ?1 " +
-            "ORDER BY end_date ASC " +
-            "LIMIT 1;", nativeQuery = true)
-    Booking getLastBookingForItem(long itemId);
-
-    @Query(value = "SELECT * " +
-            "FROM bookings as b " +
-            "WHERE item_id = ?1 " +
-            "ORDER BY start_date DESC " +
-            "LIMIT 1;", nativeQuery = true)
-    Booking getNextBookingForItem(long itemId);
+    // Следующие бронирования вещей для построения сводки
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.id in ?1 " +
+            "and b.start = (select max(n.start) from Booking n where n.item.id = b.item.id)")
+    List<Booking> findNextBookingsForItems(Collection<Long> itemIds);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    // Бронирования по убыванию (start, id) сразу в виде ответа: выбираются только нужные ответу столбцы,
+    // сущности не создаются и не отслеживаются контекстом персистентности.
+    // Если в фильтре задан ключ, выборка начинается после него, иначе пропускается from записей
+    List<ResponseBookingDto> findResponsesByFilter(BookingFilter filter, int from, int size);
+}
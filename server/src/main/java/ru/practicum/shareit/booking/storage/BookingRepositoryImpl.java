@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<ResponseBookingDto> findResponsesByFilter(BookingFilter filter, int from, int size) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<ResponseBookingDto> query = cb.createQuery(ResponseBookingDto.class);
+        Root<Booking> booking = query.from(Booking.class);
+        // Владелец нужен только в условии, его id берется из внешнего ключа вещи без соединения с users
+        Join<Booking, Item> item = booking.join("item");
+        Join<Booking, User> booker = booking.join("booker");
+
+        query.select(cb.construct(ResponseBookingDto.class,
+                        booking.get("id"),
+                        booking.get("start"),
+                        booking.get("end"),
+                        booking.get("status"),
+                        item.get("id"),
+                        item.get("name"),
+                        item.get("description"),
+                        item.get("available"),
+                        item.get("request").get("id"),
+                        booker.get("id"),
+                        booker.get("name"),
+                        booker.get("email")))
+                .where(predicates(cb, booking, item.get("owner").get("id"), booker.get("id"), filter))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        return page(em.createQuery(query), filter, from, size);
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<Booking> booking, Path<Long> ownerId,
+                                          Path<Long> bookerId, BookingFilter filter) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+        Path<Long> id = booking.get("id");
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.isOwner()) {
+            predicates.add(cb.equal(ownerId, filter.getUserId()));
+        } else {
+            predicates.add(cb.equal(bookerId, filter.getUserId()));
+        }
+
+        switch (filter.getState()) {
+            case PAST:
+                predicates.add(cb.lessThan(end, filter.getNow()));
+                break;
+            case CURRENT:
+                // Для владельца текущие бронирования включают границы, для автора - нет
+                if (filter.isOwner()) {
+                    predicates.add(cb.lessThanOrEqualTo(start, filter.getNow()));
+                    predicates.add(cb.greaterThanOrEqualTo(end, filter.getNow()));
+                } else {
+                    predicates.add(cb.lessThan(start, filter.getNow()));
+                    predicates.add(cb.greaterThan(end, filter.getNow()));
+                }
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, filter.getNow()));
+                break;
+            case WAITING:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.WAITING));
+                break;
+            case REJECTED:
+                predicates.add(cb.equal(booking.get("status"), BookingStatus.REJECTED));
+                break;
+            default:
+                break;
+        }
+
+        if (filter.getAfterStart() != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(start, filter.getAfterStart()),
+                    cb.and(cb.equal(start, filter.getAfterStart()), cb.lessThan(id, filter.getAfterId()))));
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static <T> List<T> page(TypedQuery<T> query, BookingFilter filter, int from, int size) {
+        return query
+                .setFirstResult(filter.getAfterStart() == null ? from : 0)
+                .setMaxResults(size)
+                .getResultList();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+    @EntityGraph(ItemBookingSummary.BOOKINGS_GRAPH)
+    @Query("select s from ItemBookingSummary s " +
+            "where s.itemId in ?1")
+    List<ItemBookingSummary> findAllByItemIds(Collection<Long> itemIds);
+
+    // Последним считается бронирование с самой ранней датой окончания, при равенстве дат - с меньшим id
+    default int updateLastBooking(long itemId, Booking booking) {
+        return updateLastBooking(itemId, booking, booking.getEnd(), booking.getId());
+    }
+
+    // Следующим считается бронирование с самой поздней датой начала, при равенстве дат - с меньшим id
+    default int updateNextBooking(long itemId, Booking booking) {
+        return updateNextBooking(itemId, booking, booking.getStart(), booking.getId());
+    }
+
+    // Вставка нового бронирования ждет сброса сессии, поэтому сессия сбрасывается до обновления ссылки на него
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("update ItemBookingSummary s " +
+            "set s.lastBooking = ?2, s.lastEnd = ?3 " +
+            "where s.itemId = ?1 " +
+            "and (s.lastEnd is null or s.lastEnd > ?3 or (s.lastEnd = ?3 and s.lastBooking.id > ?4))")
+    int updateLastBooking(long itemId, Booking booking, LocalDateTime end, long bookingId);
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("update ItemBookingSummary s " +
+            "set s.nextBooking = ?2, s.nextStart = ?3 " +
+            "where s.itemId = ?1 " +
+            "and (s.nextStart is null or s.nextStart < ?3 or (s.nextStart = ?3 and s.nextBooking.id > ?4))")
+    int updateNextBooking(long itemId, Booking booking, LocalDateTime start, long bookingId);
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/*
+ * Кэш с ограничением по размеру (вытесняется давно не читавшийся ключ) и по времени жизни записи.
+ * Загрузка значения выполняется вне блокировки, поэтому если ключ был инвалидирован во время загрузки,
+ * загруженное значение отдается вызывающему, но в кэш не кладется.
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Entry<V>> entries;
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long generation;
+
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    return entry.value;
+                }
+
+                entries.remove(key);
+                evictions++;
+            }
+
+            misses++;
+            generation = invalidations;
+        }
+
+        V value = loader.apply(key);
+
+        synchronized (this) {
+            if (generation == invalidations) {
+                entries.put(key, new Entry<>(value, ticker.getAsLong()));
+            }
+        }
+
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        invalidations++;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        invalidations++;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
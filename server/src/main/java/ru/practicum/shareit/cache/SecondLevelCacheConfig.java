@@ -0,0 +1,73 @@
+package ru.practicum.shareit.cache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Кэш второго уровня Hibernate для пользователей, вещей и списков вещей по запросу.
+ * Включается свойством shareit.cache.second-level.enabled, без него Hibernate работает без кэша.
+ * Регионы живут в локальном Ehcache через JCache, каждый ограничен числом записей в куче.
+ * Изменения через JPA обновляют кэш при фиксации транзакции, а вставка или изменение вещи
+ * сбрасывает закэшированный список вещей ее запроса (auto_evict_collection_cache),
+ * поэтому сервисам не нужно сбрасывать кэш вручную. Запись в эти таблицы в обход JPA кэш не увидит.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.cache.second-level.enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    public static final String REQUEST_ITEMS = "request-items";
+    static final List<String> REGIONS = List.of(USERS, ITEMS, REQUEST_ITEMS);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${shareit.cache.second-level.max-entries:10000}") long maxEntries) {
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+
+        for (String region : REGIONS) {
+            configuration = configuration.withCache(region, CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries)));
+        }
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+
+        // Свой URI у каждого контекста, чтобы тестовые контексты не делили один менеджер кэшей
+        return provider.getCacheManager(URI.create("urn:shareit:second-level:" + UUID.randomUUID()),
+                configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            // Регион без настроенного кэша - ошибка в имени, а не повод создать неограниченный кэш
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public SecondLevelCacheMetrics secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheMetrics(entityManagerFactory, REGIONS);
+    }
+}
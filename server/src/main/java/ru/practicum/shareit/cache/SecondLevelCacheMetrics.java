@@ -0,0 +1,65 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/*
+ * Статистика регионов кэша второго уровня по данным Hibernate.
+ * Метрики называются как у остальных кэшей приложения: /actuator/metrics/cache.gets с тегами cache и result
+ * и cache.puts с тегом cache, значение тега cache - имя региона.
+ */
+public class SecondLevelCacheMetrics implements MeterBinder {
+    private final Statistics statistics;
+    private final List<String> regions;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, List<String> regions) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.regions = regions;
+    }
+
+    public long hitCount(String region) {
+        return regionStatistics(region).getHitCount();
+    }
+
+    public long missCount(String region) {
+        return regionStatistics(region).getMissCount();
+    }
+
+    public long putCount(String region) {
+        return regionStatistics(region).getPutCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : regions) {
+            counter("cache.gets", region, this::hitCount)
+                    .tag("result", "hit")
+                    .description("Количество чтений, найденных в кэше второго уровня")
+                    .register(registry);
+            counter("cache.gets", region, this::missCount)
+                    .tag("result", "miss")
+                    .description("Количество чтений, не найденных в кэше второго уровня")
+                    .register(registry);
+            counter("cache.puts", region, this::putCount)
+                    .description("Количество записей, положенных в кэш второго уровня")
+                    .register(registry);
+        }
+    }
+
+    private CacheRegionStatistics regionStatistics(String region) {
+        return statistics.getDomainDataRegionStatistics(region);
+    }
+
+    private static FunctionCounter.Builder<String> counter(String name, String region, ToLongFunction<String> count) {
+        return FunctionCounter.builder(name, region, value -> count.applyAsLong(value))
+                .tag("cache", region);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Чтение read-only транзакций из реплик PostgreSQL (ReplicaRoutingDataSource).
+ * Включается свойством shareit.datasource.replica.enabled, без него все соединения идут в spring.datasource.
+ * Реплики задаются адресами в shareit.datasource.replica.urls, драйвер, пользователь и пароль
+ * берутся из spring.datasource. Для локальной проверки подойдут две базы H2 и запрос отставания,
+ * читающий число из таблицы.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${shareit.datasource.replica.urls}") String[] replicaUrls,
+            @Value("${shareit.datasource.replica.lag-query}") String lagQuery,
+            @Value("${shareit.datasource.replica.max-lag-millis:1000}") long maxLagMillis,
+            @Value("${shareit.datasource.replica.check-interval-millis:500}") long checkIntervalMillis) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String name = "replica-" + (i + 1);
+            replicas.put(name, pool(properties, name, replicaUrls[i].trim()));
+        }
+
+        return new ReplicaRoutingDataSource(pool(properties, "primary", properties.determineUrl()), replicas,
+                lagQuery, maxLagMillis, checkIntervalMillis);
+    }
+
+    // Транзакция получает соединение при первом запросе, когда признак read-only уже известен
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name, String url) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        dataSource.setPoolName(name);
+
+        return dataSource;
+    }
+}
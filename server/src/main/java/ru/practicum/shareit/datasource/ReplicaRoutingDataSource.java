@@ -0,0 +1,180 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+ * Источник соединений с чтением из реплик: соединение read-only транзакции берется у одной из реплик
+ * по кругу, все остальные соединения (пишущие транзакции, работа вне транзакции) - у основной БД.
+ * Каждые checkIntervalMillis на каждой реплике выполняется lagQuery, возвращающий ее отставание
+ * в миллисекундах. Реплика, отставшая больше maxLagMillis, не ответившая на проверку или не выдавшая
+ * соединение, не получает чтений до следующей успешной проверки. Если свежих реплик нет, читается основная БД.
+ * Транзакция должна получать соединение при первом запросе, а не при начале (LazyConnectionDataSourceProxy),
+ * иначе признак read-only еще не выставлен. Отставание доступно в /actuator/metrics/datasource.replica.lag
+ * с тегом replica, у недоступной реплики значение NaN.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final ScheduledExecutorService lagChecker;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    String lagQuery,
+                                    long maxLagMillis,
+                                    long checkIntervalMillis) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .collect(Collectors.toList());
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // До первой проверки отставание неизвестно и чтения идут в основную БД
+        lagChecker.scheduleWithFixedDelay(this::checkLag, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Выполняет действие с чтением из основной БД, даже в read-only транзакции. Нужно, когда прочитанное
+    // надолго запоминается (кэши) и устаревшие данные с отстающей реплики остались бы в нем после сброса
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY_ONLY.get()) {
+            return action.get();
+        }
+
+        PRIMARY_ONLY.set(true);
+
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                // NULL (например, основная БД вместо реплики) считается нулевым отставанием
+                replica.lagMillis = resultSet.next() ? resultSet.getDouble(1) : Double.NaN;
+            } catch (SQLException e) {
+                log.warn("Реплика {} недоступна: {}", replica.name, e.getMessage());
+                replica.lagMillis = Double.NaN;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, value -> value.lagMillis)
+                    .tag("replica", replica.name)
+                    .description("Отставание реплики от основной БД в миллисекундах")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lagChecker.shutdownNow();
+
+        for (Replica replica : replicas) {
+            closeIfCloseable(replica.dataSource);
+        }
+
+        closeIfCloseable(primary);
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_ONLY.get()) {
+            return source.get(primary);
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+
+            if (!replica.isFresh(maxLagMillis)) {
+                continue;
+            }
+
+            try {
+                return source.get(replica.dataSource);
+            } catch (SQLException e) {
+                log.warn("Реплика {} не выдала соединение, чтение идет дальше: {}", replica.name, e.getMessage());
+                replica.lagMillis = Double.NaN;
+            }
+        }
+
+        return source.get(primary);
+    }
+
+    private static void closeIfCloseable(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile double lagMillis = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isFresh(long maxLagMillis) {
+            return !Double.isNaN(lagMillis) && lagMillis <= maxLagMillis;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exeption;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String massage) {
+        super(massage);
+    }
+}
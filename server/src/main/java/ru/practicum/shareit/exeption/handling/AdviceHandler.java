@@ -1,11 +1,13 @@
 package ru.practicum.shareit.exeption.handling;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import ru.practicum.shareit.exeption.ConflictException;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.exeption.ValidationException;
 
@@ -27,11 +29,18 @@ public class AdviceHandler {
         return new ResponseEntity<>(exp.getMessage(), HttpStatus.NOT_FOUND);
     }
 
-//    @ExceptionHandler(ConflictException.class)
-//    public ResponseEntity<String> conflictException(ConflictException exp) {
-//        log.error(exp.getMessage());
-//        return new ResponseEntity<>(exp.getMessage(), HttpStatus.CONFLICT);
-//    }
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<String> conflictException(ConflictException exp) {
+        log.error(exp.getMessage());
+        return new ResponseEntity<>(exp.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    // Сохранение сущности с устаревшей версией (@Version): между чтением и записью ее изменил другой запрос
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> optimisticLockingFailure(OptimisticLockingFailureException exp) {
+        log.error(exp.getMessage());
+        return new ResponseEntity<>("Данные изменены параллельным запросом, повторите запрос", HttpStatus.CONFLICT);
+    }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Map<String, String>> errorHandler() {
@@ -2,12 +2,17 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoBookings;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -46,17 +51,50 @@ public class ItemController {
     @GetMapping
     public List<ItemDtoBookings> getAllUserItems(@RequestParam(required = false, defaultValue = "0") int from,
                                                  @RequestParam(required = false, defaultValue = "10") int size,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestHeader("X-Sharer-User-Id") long userId,
+                                                 HttpServletResponse response) {
         log.info("Получен запрос все вещей пользователя id = {}", userId);
-        return itemService.getAllUserItems(userId, from, size);
+        List<ItemDtoBookings> items = cursor == null
+                ? itemService.getAllUserItems(userId, from, size)
+                : itemService.getAllUserItemsAfter(userId, Cursor.decode(cursor).getId(), size);
+
+        Cursor.setNext(response, items, size, item -> Cursor.of(item.getId()));
+        return items;
     }
 
     @GetMapping("/search")
     public List<ItemDto> searchByText(@RequestParam(required = false, defaultValue = "0") int from,
                                       @RequestParam(required = false, defaultValue = "10") int size,
-                                      @RequestParam String text) {
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam String text,
+                                      HttpServletResponse response) {
         log.info("Получен запрос на поиск вещи = {}", text);
-        return itemService.searchItems(text, from, size);
+        List<ItemDto> items = cursor == null
+                ? itemService.searchItems(text, from, size)
+                : itemService.searchItemsAfter(text, Cursor.decode(cursor).getId(), size);
+
+        Cursor.setNext(response, items, size, item -> Cursor.of(item.getId()));
+        return items;
+    }
+
+    @GetMapping("/{id}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long id,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime start,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime end) {
+        log.info("Получен запрос занятости вещи id = {} с {} по {}", id, start, end);
+        return itemService.getAvailability(id, start, end);
+    }
+
+    @GetMapping("/{id}/next-free")
+    public ItemAvailabilityDto getNextFree(@PathVariable long id,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam long minutes) {
+        log.info("Получен запрос свободного окна вещи id = {} на {} минут с {}", id, minutes, from);
+        return itemService.getNextFree(id, from, minutes);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Getter;
+import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDtoBookings;
+import ru.practicum.shareit.requests.model.ItemRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Общедоступная часть карточки вещи: одинакова для всех пользователей, кроме бронирований владельца
+@Getter
+public class CachedItem {
+    private final long ownerId;
+    private final long id;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    // Только id: сущность запроса может оказаться ленивым прокси, который после закрытия сессии не прочитать
+    private final Long requestId;
+    private final List<CommentDto> comments;
+
+    public CachedItem(long ownerId, ItemDtoBookings item) {
+        this.ownerId = ownerId;
+        this.id = item.getId();
+        this.name = item.getName();
+        this.description = item.getDescription();
+        this.available = item.getAvailable();
+        this.requestId = item.getRequest() != null ? item.getRequest().getId() : null;
+        this.comments = List.copyOf(item.getComments());
+    }
+
+    // Каждый вызов получает свой экземпляр, чтобы изменения в нем не попадали в кэш
+    public ItemDtoBookings toDto() {
+        ItemRequest request = requestId != null ? new ItemRequest(requestId, null, null, null, null) : null;
+
+        return new ItemDtoBookings(id, name, description, available, request, null, null, new ArrayList<>(comments));
+    }
+}
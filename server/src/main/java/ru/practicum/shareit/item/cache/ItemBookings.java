@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+// Последнее и следующее бронирования вещи, видны только владельцу
+@Getter
+@AllArgsConstructor
+public class ItemBookings {
+    private final BookingDto lastBooking;
+    private final BookingDto nextBooking;
+}
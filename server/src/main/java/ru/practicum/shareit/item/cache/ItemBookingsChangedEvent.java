@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Data;
+
+// Появилось бронирование вещи или изменился его статус
+@Data
+public class ItemBookingsChangedEvent {
+    private final long itemId;
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Data;
+
+// Изменились данные вещи или ее комментарии
+@Data
+public class ItemChangedEvent {
+    private final long itemId;
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.cache.BoundedCache;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/*
+ * Кэш карточек вещей для GET /items/{id}. Общая часть и бронирования владельца хранятся раздельно:
+ * комментарий сбрасывает только общую часть, новое или подтвержденное бронирование - только бронирования.
+ * Последнее и следующее бронирования не зависят от текущего времени, поэтому устаревают только по событиям,
+ * время жизни записи лишь ограничивает расхождение с изменениями в обход сервисов.
+ * Внутри транзакции кэш сбрасывается после ее фиксации, чтобы параллельное чтение не закэшировало старые данные.
+ * Статистика доступна в /actuator/metrics/cache.gets, cache.evictions и cache.size с тегом cache.
+ */
+@Component
+@Slf4j
+public class ItemDetailsCache implements MeterBinder {
+    static final String DETAILS = "item-details";
+    static final String BOOKINGS = "item-bookings";
+
+    private final BoundedCache<Long, CachedItem> details;
+    private final BoundedCache<Long, ItemBookings> bookings;
+
+    @Autowired
+    public ItemDetailsCache(@Value("${shareit.cache.item.max-size:10000}") int maxSize,
+                            @Value("${shareit.cache.item.ttl-seconds:600}") long detailsTtl,
+                            @Value("${shareit.cache.item-bookings.ttl-seconds:600}") long bookingsTtl) {
+        this.details = new BoundedCache<>(maxSize, Duration.ofSeconds(detailsTtl));
+        this.bookings = new BoundedCache<>(maxSize, Duration.ofSeconds(bookingsTtl));
+    }
+
+    public CachedItem getDetails(long itemId, Function<Long, CachedItem> loader) {
+        return details.get(itemId, loader);
+    }
+
+    public ItemBookings getBookings(long itemId, Function<Long, ItemBookings> loader) {
+        return bookings.get(itemId, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        log.debug("Сброс кэша вещи id = {}", event.getItemId());
+        details.invalidate(event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemBookingsChanged(ItemBookingsChangedEvent event) {
+        log.debug("Сброс кэша бронирований вещи id = {}", event.getItemId());
+        bookings.invalidate(event.getItemId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, DETAILS, details);
+        bind(registry, BOOKINGS, bookings);
+    }
+
+    private static void bind(MeterRegistry registry, String name, BoundedCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, BoundedCache::hitCount)
+                .tags("cache", name, "result", "hit")
+                .description("Количество чтений, найденных в кэше")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, BoundedCache::missCount)
+                .tags("cache", name, "result", "miss")
+                .description("Количество чтений, потребовавших загрузки из БД")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, BoundedCache::evictionCount)
+                .tag("cache", name)
+                .description("Количество записей, вытесненных по размеру или времени жизни")
+                .register(registry);
+        Gauge.builder("cache.size", cache, BoundedCache::size)
+                .tag("cache", name)
+                .description("Количество записей в кэше")
+                .register(registry);
+    }
+}
@@ -1,10 +1,18 @@
 package ru.practicum.shareit.item.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.comment.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItem_Id(long id);
+
+    @Query("select c from Comment c " +
+            "join fetch c.author " +
+            "where c.item.id in ?1 " +
+            "order by c.id")
+    List<Comment> findAllByItemIds(Collection<Long> itemIds);
 }
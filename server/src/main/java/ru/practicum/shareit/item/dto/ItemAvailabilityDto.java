@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private long itemId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private boolean available;
+}
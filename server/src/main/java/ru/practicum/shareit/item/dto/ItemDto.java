@@ -1,14 +1,22 @@
 package ru.practicum.shareit.item.dto;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 
 @Data
-@AllArgsConstructor
 public class ItemDto {
     private long id;
     private String name;
     private String description;
     private Boolean available;
     private Long requestId;
+
+    // Пробелы по краям названия и описания убираются здесь, а не в запросах: DTO собирается и маппером,
+    // и выборками сразу в ответ (SELECT new ItemDto(...), ResponseBookingDto)
+    public ItemDto(long id, String name, String description, Boolean available, Long requestId) {
+        this.id = id;
+        this.name = name != null ? name.trim() : null;
+        this.description = description != null ? description.trim() : null;
+        this.available = available;
+        this.requestId = requestId;
+    }
 }
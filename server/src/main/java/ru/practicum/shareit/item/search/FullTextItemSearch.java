@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+// Полнотекстовый поиск PostgreSQL с ранжированием, индексы описаны в schema-postgresql.sql
+@Component
+@ConditionalOnProperty(name = "shareit.search.backend", havingValue = "fulltext")
+public class FullTextItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Autowired
+    public FullTextItemSearch(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public List<ItemDto> find(String text, Pageable pageable) {
+        return itemRepository.findFullText(text, pageable);
+    }
+
+    @Override
+    public List<ItemDto> findAfter(String text, long afterId, int size) {
+        return itemRepository.findFullTextAfter(text, afterId, PageRequest.of(0, size));
+    }
+}
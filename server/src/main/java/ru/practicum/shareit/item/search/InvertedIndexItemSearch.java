@@ -0,0 +1,233 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Триграммный инвертированный индекс по названию и описанию вещей в памяти сервера.
+ * Строится при старте из ItemRepository и обновляется событием ItemSavedEvent после фиксации транзакции,
+ * сохранившей вещь: откаченное изменение в индекс не попадает.
+ * Обновленная вещь сохраняет свой порядковый номер, триграммы прежнего текста из списков удаляются,
+ * поэтому размер индекса зависит от числа вещей, а не от числа обновлений.
+ * Текст приводится к нижнему регистру без учета локали сервера (Locale.ROOT).
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.backend", havingValue = "index")
+@Slf4j
+public class InvertedIndexItemSearch implements ItemSearch {
+    private static final int GRAM_LENGTH = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    // Документ с установленным битом доступен для бронирования
+    private final BitSet available = new BitSet();
+    private long[] ids = new long[LOAD_BATCH_SIZE];
+    private String[] texts = new String[LOAD_BATCH_SIZE];
+    private int size;
+
+    @Autowired
+    public InvertedIndexItemSearch(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @PostConstruct
+    public void build() {
+        long lastId = 0;
+        List<Item> batch;
+
+        do {
+            batch = itemRepository.findAllByIdGreaterThanOrderById(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            batch.forEach(this::index);
+
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        log.info("Индекс поиска вещей построен, документов: {}", ordinalsById.size());
+    }
+
+    @Override
+    public List<ItemDto> find(String text, Pageable pageable) {
+        long[] matched = match(text);
+        int from = (int) Math.min(pageable.getOffset(), matched.length);
+
+        return loadPage(matched, from, Math.min(from + pageable.getPageSize(), matched.length));
+    }
+
+    @Override
+    public List<ItemDto> findAfter(String text, long afterId, int size) {
+        long[] matched = match(text);
+        int position = Arrays.binarySearch(matched, afterId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+
+        return loadPage(matched, from, Math.min(from + size, matched.length));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        index(event.getItem());
+    }
+
+    public void index(Item item) {
+        String name = item.getName().toLowerCase(Locale.ROOT);
+        String description = item.getDescription().toLowerCase(Locale.ROOT);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinalsById.get(item.getId());
+            int ordinal;
+
+            if (previous != null) {
+                ordinal = previous;
+                removeGrams(texts[ordinal], ordinal);
+            } else {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    texts = Arrays.copyOf(texts, size * 2);
+                }
+
+                ordinal = size++;
+                ids[ordinal] = item.getId();
+                ordinalsById.put(item.getId(), ordinal);
+            }
+
+            texts[ordinal] = name + "\n" + description;
+            available.set(ordinal, Boolean.TRUE.equals(item.getAvailable()));
+
+            addGrams(name, ordinal);
+            addGrams(description, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Число документов индекса, по одному на вещь
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Отсортированные id доступных вещей, содержащих текст
+    private long[] match(String text) {
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        long[] matched;
+        int count = 0;
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(lowerText);
+            matched = new long[candidates.length];
+
+            for (int ordinal : candidates) {
+                if (available.get(ordinal) && texts[ordinal].contains(lowerText)) {
+                    matched[count++] = ids[ordinal];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matched = Arrays.copyOf(matched, count);
+        Arrays.sort(matched);
+
+        return matched;
+    }
+
+    private List<ItemDto> loadPage(long[] matched, int from, int to) {
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+
+        List<Long> pageIds = Arrays.stream(matched, from, to)
+                .boxed()
+                .collect(Collectors.toList());
+        Map<Long, ItemDto> items = itemRepository.findDtosByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+
+        return pageIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Кандидаты - пересечение списков всех триграмм запроса, для коротких запросов - все доступные вещи
+    private int[] candidates(String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return available.stream().toArray();
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            PostingList list = postings.get(text.substring(i, i + GRAM_LENGTH));
+
+            if (list == null) {
+                return new int[0];
+            }
+
+            lists.add(list);
+        }
+
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = lists.get(0).toArray();
+
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainAll(result);
+        }
+
+        return result;
+    }
+
+    // Триграммы, пересекающие границу названия и описания, в списках не встречаются и пропускаются
+    private void removeGrams(String text, int ordinal) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM_LENGTH);
+            PostingList list = postings.get(gram);
+
+            if (list != null) {
+                list.remove(ordinal);
+
+                if (list.size() == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void addGrams(String text, int ordinal) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(text.substring(i, i + GRAM_LENGTH), gram -> new PostingList()).add(ordinal);
+        }
+    }
+}
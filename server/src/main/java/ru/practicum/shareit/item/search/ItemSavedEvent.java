@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Data;
+import ru.practicum.shareit.item.model.Item;
+
+// Вещь создана или обновлена, поиск в памяти сервера обновляет индекс после фиксации транзакции
+@Data
+public class ItemSavedEvent {
+    private final Item item;
+}
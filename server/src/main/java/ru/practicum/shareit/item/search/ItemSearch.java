@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+public interface ItemSearch {
+    // Возвращаются только доступные для бронирования вещи, сразу в виде ответа
+    List<ItemDto> find(String text, Pageable pageable);
+
+    // Следующие size доступных вещей после вещи afterId в порядке выдачи find (по id или по релевантности)
+    List<ItemDto> findAfter(String text, long afterId, int size);
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+// Поиск подстрокой через like, работает на любой БД (используется в профилях test и ci на H2)
+@Component
+@ConditionalOnProperty(name = "shareit.search.backend", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Autowired
+    public LikeItemSearch(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public List<ItemDto> find(String text, Pageable pageable) {
+        return itemRepository.findAvailable(text, pageable);
+    }
+
+    @Override
+    public List<ItemDto> findAfter(String text, long afterId, int size) {
+        return itemRepository.findAvailableAfter(text, afterId, PageRequest.of(0, size));
+    }
+}
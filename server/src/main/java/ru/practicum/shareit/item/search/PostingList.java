@@ -0,0 +1,67 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+// Порядковые номера документов индекса по возрастанию, хранятся в массиве int без упаковки
+class PostingList {
+    private int[] ordinals = new int[4];
+    private int size;
+
+    // Номер вставляется на свое место по возрастанию, повтор игнорируется
+    void add(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+        if (position >= 0) {
+            return;
+        }
+
+        position = -position - 1;
+
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+
+        System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+        ordinals[position] = ordinal;
+        size++;
+    }
+
+    void remove(int ordinal) {
+        int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+
+        if (position >= 0) {
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ordinals, size);
+    }
+
+    // Пересечение отсортированного массива с этим списком, результат тоже отсортирован
+    int[] retainAll(int[] sorted) {
+        int[] result = new int[Math.min(sorted.length, size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < sorted.length && j < size) {
+            if (sorted[i] < ordinals[j]) {
+                i++;
+            } else if (sorted[i] > ordinals[j]) {
+                j++;
+            } else {
+                result[count++] = sorted[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+}
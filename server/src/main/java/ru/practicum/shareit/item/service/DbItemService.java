@@ -2,33 +2,50 @@ package ru.practicum.shareit.item.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.datasource.ReplicaRoutingDataSource;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.exeption.ValidationException;
+import ru.practicum.shareit.item.cache.CachedItem;
+import ru.practicum.shareit.item.cache.ItemBookings;
+import ru.practicum.shareit.item.cache.ItemChangedEvent;
+import ru.practicum.shareit.item.cache.ItemDetailsCache;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSavedEvent;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.storage.ItemRepository;
-import ru.practicum.shareit.requests.storage.RequestsRepository;
-import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,68 +54,83 @@ import java.util.stream.Collectors;
 public class DbItemService implements ItemService {
     private final ItemMapper itemMapper;
     private final ItemRepository itemRepository;
-    private final RequestsRepository requestsRepository;
-    private final UserRepository userRepository;
+    private final EntityLookup entityLookup;
     private final BookingRepository bookingRepository;
+    private final ItemBookingSummaryRepository summaryRepository;
     private final BookingMapper bookingMapper;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
+    private final ItemSearch itemSearch;
+    private final ItemDetailsCache itemDetailsCache;
+    private final ItemAvailabilityIndex availabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public DbItemService(ItemMapper itemMapper,
                          ItemRepository itemRepository,
-                         RequestsRepository requestsRepository,
-                         UserRepository userRepository,
+                         EntityLookup entityLookup,
                          BookingRepository bookingRepository,
+                         ItemBookingSummaryRepository summaryRepository,
                          BookingMapper bookingMapper,
                          CommentRepository commentRepository,
-                         CommentMapper commentMapper) {
+                         CommentMapper commentMapper,
+                         ItemSearch itemSearch,
+                         ItemDetailsCache itemDetailsCache,
+                         ItemAvailabilityIndex availabilityIndex,
+                         ApplicationEventPublisher eventPublisher) {
         this.itemMapper = itemMapper;
         this.itemRepository = itemRepository;
-        this.requestsRepository = requestsRepository;
-        this.userRepository = userRepository;
+        this.entityLookup = entityLookup;
         this.bookingRepository = bookingRepository;
+        this.summaryRepository = summaryRepository;
         this.bookingMapper = bookingMapper;
         this.commentRepository = commentRepository;
         this.commentMapper = commentMapper;
+        this.itemSearch = itemSearch;
+        this.itemDetailsCache = itemDetailsCache;
+        this.availabilityIndex = availabilityIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public ItemDto createItem(ItemDto itemDto, long userId) {
-        if (!checkId(itemDto)) {
+        // Новая вещь приходит с id = 0, строк с таким id в БД не бывает
+        if (itemDto.getId() != 0) {
             throw new StorageException("Невозможно создать вещь, неверный формат id");
         }
 
         Item item = itemMapper.toItem(itemDto);
-        item.setOwner(getUserFromDb(userId));
+        item.setOwner(entityLookup.getUser(userId, "Пользователя не существует, невозможно добавить вещь"));
 
-        // Если вещь добавляется по запросу другого пользователя, проверяем существует ли он
+        // Если вещь добавляется по запросу другого пользователя, существование запроса проверит внешний ключ
         if (itemDto.getRequestId() != null) {
-            item.setRequest(requestsRepository.findById(itemDto.getRequestId())
-                    .orElseThrow(
-                            () -> new StorageException("Запроса на вещь не существует," +
-                                    " попробуйте создание без привязки к запросу")));
+            item.setRequest(entityLookup.requestReference(itemDto.getRequestId()));
         }
 
-        return itemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = entityLookup.saveReferencing(itemRepository, item, Item.REQUEST_FOREIGN_KEY,
+                "Запроса на вещь не существует, попробуйте создание без привязки к запросу");
+        summaryRepository.save(ItemBookingSummary.of(savedItem.getId(), null, null));
+        eventPublisher.publishEvent(new ItemSavedEvent(savedItem));
+
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
+    @Transactional
     public ItemDto updateItem(ItemDto itemDto, long id, long userId) {
         itemDto.setId(id);
 
-        if (!itemRepository.existsById(itemDto.getId())) {
-            throw new StorageException("Невозможно обновить вещь, ее не существует");
-        }
-
         Item itemToUpdate = itemMapper.toItem(itemDto);
-        Item itemFromBd = getItemFromOptional(itemRepository.findById(id));
+        Item itemFromBd = entityLookup.getItem(id, "Невозможно обновить вещь, ее не существует");
 
         if (itemFromBd.getOwner().getId() != userId) {
             throw new StorageException("У пользователя не найдено обновляемой вещи");
         }
 
-        itemToUpdate.setOwner(getUserFromDb(userId));
+        itemToUpdate.setOwner(itemFromBd.getOwner());
+        // Вещь собрана из DTO, версия берется прочитанная: изменение, сделанное после чтения, приведет к конфликту
+        itemToUpdate.setVersion(itemFromBd.getVersion());
 
         if (itemToUpdate.getName() == null) {
             itemToUpdate.setName(itemFromBd.getName());
@@ -112,37 +144,62 @@ public class DbItemService implements ItemService {
             itemToUpdate.setAvailable(itemFromBd.getAvailable());
         }
 
-        return itemMapper.toItemDto(itemRepository.save(itemToUpdate));
+        Item savedItem = itemRepository.save(itemToUpdate);
+        entityLookup.remember(savedItem);
+        eventPublisher.publishEvent(new ItemSavedEvent(savedItem));
+        eventPublisher.publishEvent(new ItemChangedEvent(savedItem.getId()));
+
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDtoBookings getItem(long id, long userId) {
-        Item item = getItemFromOptional(itemRepository.findById(id));
-        ItemDtoBookings itemBookings = itemMapper.toItemBookingDto(item);
-
-        if (item.getOwner().getId() == userId) {
-            itemBookings.setLastBooking(getLastBooking(id));
-            itemBookings.setNextBooking(getNextBooking(id));
+        // Карточка кэшируется, поэтому читается из основной БД: отстающая реплика вернула бы в кэш
+        // данные до только что сбросившего его изменения
+        CachedItem cachedItem = itemDetailsCache.getDetails(id,
+                itemId -> ReplicaRoutingDataSource.onPrimary(() -> loadItem(itemId)));
+        ItemDtoBookings itemBookings = cachedItem.toDto();
+
+        if (cachedItem.getOwnerId() == userId) {
+            ItemBookings bookings = itemDetailsCache.getBookings(id,
+                    itemId -> ReplicaRoutingDataSource.onPrimary(() -> loadItemBookings(itemId)));
+            itemBookings.setLastBooking(bookings.getLastBooking());
+            itemBookings.setNextBooking(bookings.getNextBooking());
         }
 
-        itemBookings.setComments(getCommentsDtoList(id));
-
         return itemBookings;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDtoBookings> getAllUserItems(long userId, int from, int size) {
         Pageable pageable = PageRequest.of(from / size, size);
 
-        return itemRepository.findAllByOwner_IdOrderById(userId, pageable).stream()
+        List<ItemDtoBookings> items = itemRepository.findAllByOwner_IdOrderById(userId, pageable).stream()
+                .map(itemMapper::toItemBookingDto)
+                .collect(Collectors.toList());
+
+        fillBookingsAndComments(items);
+
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDtoBookings> getAllUserItemsAfter(long userId, long afterId, int size) {
+        List<ItemDtoBookings> items = itemRepository.findAllByOwner_IdAndIdGreaterThanOrderById(
+                        userId, afterId, PageRequest.of(0, size)).stream()
                 .map(itemMapper::toItemBookingDto)
-                .peek(item -> item.setLastBooking(getLastBooking(item.getId())))
-                .peek(item -> item.setNextBooking(getNextBooking(item.getId())))
-                .peek(item -> item.setComments(getCommentsDtoList(item.getId())))
                 .collect(Collectors.toList());
+
+        fillBookingsAndComments(items);
+
+        return items;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> searchItems(String name, int from, int size) {
         if (name.isEmpty()) {
             return new ArrayList<>();
@@ -150,21 +207,58 @@ public class DbItemService implements ItemService {
 
         Pageable pageable = PageRequest.of(from / size, size);
 
-        return itemRepository.find(name.trim().toLowerCase(), pageable).stream()
-                .filter(Item::getAvailable)
-                .map(itemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return itemSearch.find(name.trim().toLowerCase(Locale.ROOT), pageable);
     }
 
     @Override
-    public CommentDto addComment(long itemId, long userId, CommentDto commentDto) {
-        if (!itemRepository.existsById(itemId)) {
-            throw new StorageException("Вещи не существует");
-        } else if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователя не существует");
+    @Transactional(readOnly = true)
+    public List<ItemDto> searchItemsAfter(String name, long afterId, int size) {
+        if (name.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return itemSearch.findAfter(name.trim().toLowerCase(Locale.ROOT), afterId, size);
+    }
+
+    // Занятость отвечается из памяти без транзакции и соединения с БД, при первом обращении к вещи
+    // индекс сам загружает ее бронирования запросами репозиториев
+    @Override
+    public ItemAvailabilityDto getAvailability(long id, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new ValidationException("Начало периода должно быть раньше окончания");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!end.isAfter(now)) {
+            throw new ValidationException("Период уже прошел");
         }
 
-        Booking booking = bookingRepository.findLastBooker_IdAndItem_Id(userId, itemId).orElseThrow(
+        // Прошедшая часть периода не проверяется: закончившиеся бронирования индекс не хранит
+        boolean available = availabilityIndex.isFree(id, start.isBefore(now) ? now : start, end);
+
+        return new ItemAvailabilityDto(id, start, end, available);
+    }
+
+    @Override
+    public ItemAvailabilityDto getNextFree(long id, LocalDateTime from, long minutes) {
+        if (minutes <= 0) {
+            throw new ValidationException("Длительность должна быть положительной");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Duration duration = Duration.ofMinutes(minutes);
+        LocalDateTime start = availabilityIndex.nextFree(id, from == null || from.isBefore(now) ? now : from,
+                duration);
+
+        return new ItemAvailabilityDto(id, start, start.plus(duration), true);
+    }
+
+    @Override
+    @Transactional
+    public CommentDto addComment(long itemId, long userId, CommentDto commentDto) {
+        // Бронирование находится только для существующих вещи и пользователя
+        Booking booking = bookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(userId, itemId).orElseThrow(
                 () -> new StorageException("Ошибка получения бронирования"));
 
         if (booking.getEnd().isAfter(LocalDateTime.now())) {
@@ -175,24 +269,27 @@ public class DbItemService implements ItemService {
         comment.setAuthor(booking.getBooker());
         comment.setItem(booking.getItem());
 
-        return commentMapper.toCommentDto(commentRepository.save(comment));
-    }
+        CommentDto savedComment = commentMapper.toCommentDto(commentRepository.save(comment));
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
 
-    private boolean checkId(ItemDto itemDto) {
-        return itemDto.getId() == 0 && !itemRepository.existsById(itemDto.getId());
+        return savedComment;
     }
 
-    private User getUserFromDb(long id) {
-        if (!userRepository.existsById(id)) {
-            throw new StorageException("Пользователя не существует, невозможно добавить вещь");
-        }
-        return userRepository.findById(id).orElseThrow(
-                () -> new StorageException("Ошибка получения пользователя из БД"));
+    private CachedItem loadItem(long itemId) {
+        Item item = entityLookup.getItem(itemId, "Ошибка получения вещи");
+        ItemDtoBookings itemBookings = itemMapper.toItemBookingDto(item);
+        itemBookings.setComments(getCommentsDtoList(itemId));
+
+        return new CachedItem(item.getOwner().getId(), itemBookings);
     }
 
-    private BookingDto getLastBooking(long itemId) {
-        Booking booking = bookingRepository.getLastBookingForItem(itemId);
+    private ItemBookings loadItemBookings(long itemId) {
+        ItemBookingSummary summary = getSummaries(Set.of(itemId)).get(itemId);
+
+        return new ItemBookings(toItemBooking(summary.getLastBooking()), toItemBooking(summary.getNextBooking()));
+    }
 
+    private BookingDto toItemBooking(Booking booking) {
         if (booking == null) {
             return null;
         }
@@ -200,14 +297,64 @@ public class DbItemService implements ItemService {
         return bookingMapper.toItemBooking(booking);
     }
 
-    private BookingDto getNextBooking(long itemId) {
-        Booking booking = bookingRepository.getNextBookingForItem(itemId);
+    // Бронирования и комментарии для всей страницы вещей загружаются тремя запросами, независимо от ее размера
+    private void fillBookingsAndComments(List<ItemDtoBookings> items) {
+        if (items.isEmpty()) {
+            return;
+        }
 
-        if (booking == null) {
-            return null;
+        Set<Long> itemIds = items.stream()
+                .map(ItemDtoBookings::getId)
+                .collect(Collectors.toSet());
+
+        Map<Long, ItemBookingSummary> summaries = getSummaries(itemIds);
+        Map<Long, List<CommentDto>> comments = commentRepository.findAllByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(commentMapper::toCommentDto, Collectors.toList())));
+
+        for (ItemDtoBookings item : items) {
+            ItemBookingSummary summary = summaries.get(item.getId());
+            item.setLastBooking(toItemBooking(summary.getLastBooking()));
+            item.setNextBooking(toItemBooking(summary.getNextBooking()));
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
         }
+    }
 
-        return bookingMapper.toItemBooking(booking);
+    // Сводки бронирований вещей. Сводки вещей, созданных до ее появления, заполняет schema.sql;
+    // если сводки все же нет, она строится по истории бронирований только для ответа, без записи при чтении
+    private Map<Long, ItemBookingSummary> getSummaries(Set<Long> itemIds) {
+        Map<Long, ItemBookingSummary> summaries = summaryRepository.findAllByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity(),
+                        (first, second) -> first, HashMap::new));
+
+        Set<Long> missingIds = itemIds.stream()
+                .filter(itemId -> !summaries.containsKey(itemId))
+                .collect(Collectors.toSet());
+
+        if (missingIds.isEmpty()) {
+            return summaries;
+        }
+
+        Map<Long, Booking> lastBookings = groupByItem(bookingRepository.findLastBookingsForItems(missingIds));
+        Map<Long, Booking> nextBookings = groupByItem(bookingRepository.findNextBookingsForItems(missingIds));
+
+        for (Long itemId : missingIds) {
+            ItemBookingSummary summary = ItemBookingSummary.of(itemId,
+                    lastBookings.get(itemId),
+                    nextBookings.get(itemId));
+            summaries.put(itemId, summary);
+        }
+
+        return summaries;
+    }
+
+    // Если у вещи несколько бронирований с одинаковой датой, берется бронирование с меньшим id
+    private Map<Long, Booking> groupByItem(List<Booking> bookings) {
+        return bookings.stream()
+                .sorted(Comparator.comparing(Booking::getId))
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(),
+                        Function.identity(),
+                        (first, second) -> first));
     }
 
     private List<CommentDto> getCommentsDtoList(long itemId) {
@@ -221,8 +368,4 @@ public class DbItemService implements ItemService {
 
         return new ArrayList<>();
     }
-
-    private Item getItemFromOptional(Optional<Item> itemOptional) {
-        return itemOptional.orElseThrow(() -> new StorageException("Ошибка получения вещи"));
-    }
 }
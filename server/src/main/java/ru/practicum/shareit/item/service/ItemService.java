@@ -1,9 +1,11 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoBookings;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -15,7 +17,15 @@ public interface ItemService {
 
     List<ItemDtoBookings> getAllUserItems(long userId, int from, int size);
 
+    List<ItemDtoBookings> getAllUserItemsAfter(long userId, long afterId, int size);
+
     List<ItemDto> searchItems(String name, int from, int size);
 
+    List<ItemDto> searchItemsAfter(String name, long afterId, int size);
+
+    ItemAvailabilityDto getAvailability(long id, LocalDateTime start, LocalDateTime end);
+
+    ItemAvailabilityDto getNextFree(long id, LocalDateTime from, long minutes);
+
     CommentDto addComment(long itemId, long userId, CommentDto commentDto);
 }
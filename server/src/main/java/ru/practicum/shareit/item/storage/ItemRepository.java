@@ -1,17 +1,52 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    @Query("select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            " or upper(i.description) like upper(concat('%', ?1, '%'))")
-    List<Item> find(String text, Pageable pageable);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    // Выборка сразу в ответ: только столбцы ItemDto, без сущностей и их владельцев
+    String SELECT_ITEM_DTO = "select new ru.practicum.shareit.item.dto.ItemDto(" +
+            "i.id, i.name, i.description, i.available, i.request.id) ";
+
+    // Доступность входит в условие поиска, поэтому страница всегда заполнена целиком
+    @Query(SELECT_ITEM_DTO +
+            "from Item i " +
+            "where i.available = true " +
+            "and (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "order by i.id")
+    List<ItemDto> findAvailable(String text, Pageable pageable);
+
+    // Продолжение поиска по ключу: следующая страница после вещи afterId
+    @Query(SELECT_ITEM_DTO +
+            "from Item i " +
+            "where i.available = true " +
+            "and i.id > ?2 " +
+            "and (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "order by i.id")
+    List<ItemDto> findAvailableAfter(String text, long afterId, Pageable pageable);
 
     List<Item> findAllByOwner_IdOrderById(long userId, Pageable pageable);
-}
\ No newline at end of file
+
+    List<Item> findAllByOwner_IdAndIdGreaterThanOrderById(long userId, long id, Pageable pageable);
+
+    List<Item> findAllByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    // Страница найденных вещей по id для ответа поиска
+    @Query(SELECT_ITEM_DTO +
+            "from Item i " +
+            "where i.id in ?1")
+    List<ItemDto> findDtosByIdIn(Collection<Long> ids);
+
+    // Ответы на страницу запросов одним запросом, владелец загружается вместе с вещью
+    @EntityGraph(attributePaths = "owner")
+    List<Item> findAllByRequest_IdInOrderById(Collection<Long> requestIds);
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+    // Только для PostgreSQL: подстрока ищется по частичным триграммным индексам, порядок - по релевантности
+    List<ItemDto> findFullText(String text, Pageable pageable);
+
+    // Только для PostgreSQL: продолжение после вещи afterId в том же порядке релевантности
+    List<ItemDto> findFullTextAfter(String text, long afterId, Pageable pageable);
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+ * Полнотекстовый поиск PostgreSQL со сборкой строк сразу в ItemDto.
+ * Spring Data не собирает DTO-классы из native-запросов, поэтому запросы выполняются здесь,
+ * выбираются только столбцы ответа, сущности вещей и владельцев не создаются.
+ */
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+    private static final String SELECT_ITEM_DTO = "SELECT i.item_id, i.name, i.description, " +
+            "i.available, i.request_id " +
+            "FROM items AS i ";
+    private static final String MATCHES = "(to_tsvector('russian', i.name || ' ' || i.description) " +
+            "@@ plainto_tsquery('russian', ?1) " +
+            "OR i.name ILIKE concat('%', ?1, '%') " +
+            "OR i.description ILIKE concat('%', ?1, '%')) ";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<ItemDto> findFullText(String text, Pageable pageable) {
+        Query query = em.createNativeQuery(SELECT_ITEM_DTO +
+                        "WHERE i.available " +
+                        "AND " + MATCHES +
+                        "ORDER BY " + rank("i") + " DESC, " + similarity("i") + " DESC, i.item_id")
+                .setParameter(1, text);
+
+        return page(query, pageable);
+    }
+
+    // Продолжение выдачи в том же порядке, что и первая страница: ключ (ранг, сходство, id) вещи-якоря
+    // вычисляется заново по ее id, поэтому курсор хранит только id и совпадает с ключом точно
+    // (если вещь-якорь удалена, продолжения нет).
+    // Убывание по рангу и сходству и возрастание по id - это убывание по (ранг, сходство, -id)
+    @Override
+    public List<ItemDto> findFullTextAfter(String text, long afterId, Pageable pageable) {
+        Query query = em.createNativeQuery(SELECT_ITEM_DTO +
+                        "CROSS JOIN (SELECT " + rank("a") + ", " + similarity("a") + ", -a.item_id FROM items AS a " +
+                        "WHERE a.item_id = ?2) AS anchor (rank, similarity, sort_key) " +
+                        "WHERE i.available " +
+                        "AND " + MATCHES +
+                        "AND (" + rank("i") + ", " + similarity("i") + ", -i.item_id) " +
+                        "< (anchor.rank, anchor.similarity, anchor.sort_key) " +
+                        "ORDER BY " + rank("i") + " DESC, " + similarity("i") + " DESC, i.item_id")
+                .setParameter(1, text)
+                .setParameter(2, afterId);
+
+        return page(query, pageable);
+    }
+
+    // Ранг совпадения вещи с псевдонимом alias с запросом
+    private static String rank(String alias) {
+        return "ts_rank(to_tsvector('russian', " + alias + ".name || ' ' || " + alias + ".description), " +
+                "plainto_tsquery('russian', ?1))";
+    }
+
+    // Триграммное сходство названия или описания вещи с запросом
+    private static String similarity(String alias) {
+        return "greatest(similarity(" + alias + ".name, ?1), similarity(" + alias + ".description, ?1))";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ItemDto> page(Query query, Pageable pageable) {
+        List<Object[]> rows = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new ItemDto(((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (String) row[2],
+                        (Boolean) row[3],
+                        row[4] == null ? null : ((Number) row[4]).longValue()))
+                .collect(Collectors.toList());
+    }
+}
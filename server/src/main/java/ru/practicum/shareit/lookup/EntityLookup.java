@@ -0,0 +1,170 @@
+package ru.practicum.shareit.lookup;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.requests.model.ItemRequest;
+import ru.practicum.shareit.requests.storage.RequestsRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+ * Получение связанных сущностей для сервисов: строка читается одним запросом, без предварительного existsById.
+ * Если связи нужен только внешний ключ, вместо загрузки строки берется ссылка, а отсутствие строки
+ * обнаруживается базой при сохранении - нарушение ограничения превращается в StorageException.
+ * Пользователи и вещи запоминаются до конца HTTP-запроса, повторное получение в том же запросе идет из памяти.
+ */
+@Component
+public class EntityLookup {
+    private static final String MEMO_ATTRIBUTE = RequestEntityMemo.class.getName();
+    // SQLState отсутствующей родительской строки: foreign_key_violation в PostgreSQL, 23506 в H2
+    private static final Set<String> FOREIGN_KEY_VIOLATIONS = Set.of("23503", "23506");
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final RequestsRepository requestsRepository;
+
+    public EntityLookup(UserRepository userRepository,
+                        ItemRepository itemRepository,
+                        BookingRepository bookingRepository,
+                        RequestsRepository requestsRepository) {
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.requestsRepository = requestsRepository;
+    }
+
+    public Optional<User> findUser(long userId) {
+        return memoized(User.class, userId, userRepository::findById);
+    }
+
+    public User getUser(long userId, String notFoundMessage) {
+        return findUser(userId).orElseThrow(() -> new StorageException(notFoundMessage));
+    }
+
+    public Item getItem(long itemId, String notFoundMessage) {
+        return memoized(Item.class, itemId, itemRepository::findById)
+                .orElseThrow(() -> new StorageException(notFoundMessage));
+    }
+
+    // Бронирование загружается вместе с вещью, ее владельцем и автором бронирования,
+    // они запоминаются для следующих обращений в запросе
+    public Booking getBooking(long bookingId, String notFoundMessage) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new StorageException(notFoundMessage));
+
+        remember(booking.getBooker());
+        remember(booking.getItem());
+        remember(booking.getItem().getOwner());
+
+        return booking;
+    }
+
+    public void remember(User user) {
+        RequestEntityMemo memo = currentMemo();
+
+        if (memo != null) {
+            memo.put(User.class, user.getId(), user);
+        }
+    }
+
+    public void remember(Item item) {
+        RequestEntityMemo memo = currentMemo();
+
+        if (memo != null) {
+            memo.put(Item.class, item.getId(), item);
+        }
+    }
+
+    public void forgetUser(long userId) {
+        RequestEntityMemo memo = currentMemo();
+
+        if (memo != null) {
+            memo.remove(User.class, userId);
+        }
+    }
+
+    // Ссылка на запрос без обращения к БД, существование запроса проверит внешний ключ при сохранении
+    public ItemRequest requestReference(long requestId) {
+        return requestsRepository.getReferenceById(requestId);
+    }
+
+    // Сохранение сущности со ссылками: запись выполняется сразу, чтобы нарушение внешнего ключа
+    // обнаружилось здесь, а не при завершении транзакции. В StorageException превращается только нарушение
+    // указанного внешнего ключа, остальные нарушения ограничений пробрасываются как есть
+    public <T> T saveReferencing(JpaRepository<T, Long> repository, T entity,
+                                 String foreignKey, String notFoundMessage) {
+        try {
+            return repository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, foreignKey)) {
+                throw new StorageException(notFoundMessage);
+            }
+
+            throw e;
+        }
+    }
+
+    private <T> Optional<T> memoized(Class<T> type, long id, Function<Long, Optional<T>> loader) {
+        RequestEntityMemo memo = currentMemo();
+
+        if (memo == null) {
+            return loader.apply(id);
+        }
+
+        return memo.get(type, id, loader);
+    }
+
+    // Памятка хранится в атрибутах текущего HTTP-запроса. Вне запроса (фоновые задачи, тесты сервисов)
+    // ее нет, и сущности читаются из БД при каждом обращении
+    private RequestEntityMemo currentMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes == null) {
+            return null;
+        }
+
+        RequestEntityMemo memo = (RequestEntityMemo) attributes.getAttribute(MEMO_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+
+        if (memo == null) {
+            memo = new RequestEntityMemo();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+            attributes.registerDestructionCallback(MEMO_ATTRIBUTE, memo::logStatistics,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return memo;
+    }
+
+    // Имя ограничения Hibernate достает из сообщения драйвера, но для пакетной вставки оставляет его пустым,
+    // тогда ограничение ищется в сообщении самого драйвера. В H2 имя в верхнем регистре, поэтому
+    // сравнивается без учета регистра
+    private static boolean violates(DataIntegrityViolationException e, String foreignKey) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+
+        ConstraintViolationException cause = (ConstraintViolationException) e.getCause();
+        String constraint = cause.getConstraintName() != null
+                ? cause.getConstraintName()
+                : cause.getSQLException().getMessage();
+
+        return FOREIGN_KEY_VIOLATIONS.contains(cause.getSQLState()) && constraint != null
+                && constraint.toLowerCase(Locale.ROOT).contains(foreignKey.toLowerCase(Locale.ROOT));
+    }
+}
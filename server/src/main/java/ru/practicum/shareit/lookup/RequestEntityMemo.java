@@ -0,0 +1,65 @@
+package ru.practicum.shareit.lookup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+ * Сущности, уже прочитанные в рамках одного HTTP-запроса, по типу и id.
+ * Повторное получение той же строки в запросе обходится без обращения к БД. Счетчики попаданий и промахов
+ * относятся только к своему запросу и пишутся в лог при его завершении.
+ * Объект используется одним потоком обработки запроса, поэтому не синхронизирован.
+ */
+@Slf4j
+public class RequestEntityMemo {
+    private final Map<Class<?>, Map<Long, Object>> entities = new HashMap<>();
+    private int hits;
+    private int misses;
+
+    // Отсутствующая строка не запоминается: ее могут создать позже в том же запросе
+    public <T> Optional<T> get(Class<T> type, long id, Function<Long, Optional<T>> loader) {
+        Map<Long, Object> byId = entities.computeIfAbsent(type, key -> new HashMap<>());
+        Object entity = byId.get(id);
+
+        if (entity != null) {
+            hits++;
+            return Optional.of(type.cast(entity));
+        }
+
+        misses++;
+        Optional<T> loaded = loader.apply(id);
+        loaded.ifPresent(value -> byId.put(id, value));
+
+        return loaded;
+    }
+
+    // Вызывается после сохранения, чтобы дальше в запросе читалась новая версия сущности
+    public <T> void put(Class<T> type, long id, T entity) {
+        entities.computeIfAbsent(type, key -> new HashMap<>()).put(id, entity);
+    }
+
+    public void remove(Class<?> type, long id) {
+        Map<Long, Object> byId = entities.get(type);
+
+        if (byId != null) {
+            byId.remove(id);
+        }
+    }
+
+    public int hitCount() {
+        return hits;
+    }
+
+    public int missCount() {
+        return misses;
+    }
+
+    public void logStatistics() {
+        if (hits + misses > 0) {
+            log.debug("Сущности запроса: попаданий {}, промахов {}", hits, misses);
+        }
+    }
+}
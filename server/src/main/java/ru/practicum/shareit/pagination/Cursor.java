@@ -0,0 +1,70 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Data;
+import ru.practicum.shareit.exeption.ValidationException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Непрозрачный курсор для постраничного вывода по ключу. Хранит ключ последнего элемента страницы:
+ * id или пару (время, id), если список упорядочен по времени.
+ */
+@Data
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final long id;
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime time, long id) {
+        return new Cursor(time, id);
+    }
+
+    // Курсор следующей страницы отдается в заголовке, только если текущая страница заполнена
+    public static <T> void setNext(HttpServletResponse response, List<T> page, int size, Function<T, Cursor> key) {
+        if (!page.isEmpty() && page.size() == size) {
+            response.setHeader(NEXT_CURSOR_HEADER, key.apply(page.get(page.size() - 1)).encode());
+        }
+    }
+
+    public static Cursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+
+            if (separator < 0) {
+                return of(Long.parseLong(decoded));
+            }
+
+            return of(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+
+    public String encode() {
+        String value = time != null ? time + SEPARATOR + id : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Курсор списка, упорядоченного по времени, обязан содержать время
+    public LocalDateTime requireTime() {
+        if (time == null) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+
+        return time;
+    }
+}
@@ -3,9 +3,11 @@ package ru.practicum.shareit.requests;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.service.RequestService;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -35,10 +37,22 @@ public class ItemRequestController {
     @GetMapping("/all")
     public List<ItemRequestDto> getAllRequests(@RequestParam(required = false, defaultValue = "0") int from,
                                                @RequestParam(required = false, defaultValue = "10") int size,
-                                               @RequestHeader("X-Sharer-User-Id") long userId) {
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestHeader("X-Sharer-User-Id") long userId,
+                                               HttpServletResponse response) {
         log.info("Получение всех запросов на вещи начиная с {}\n " +
                 "Элементов в странице {}", from, size);
-        return requestService.getAllRequestPagination(from, size, userId);
+        List<ItemRequestDto> requests;
+
+        if (cursor == null) {
+            requests = requestService.getAllRequestPagination(from, size, userId);
+        } else {
+            Cursor after = Cursor.decode(cursor);
+            requests = requestService.getAllRequestsAfter(after.requireTime(), after.getId(), size, userId);
+        }
+
+        Cursor.setNext(response, requests, size, request -> Cursor.of(request.getCreated(), request.getId()));
+        return requests;
     }
 
     @GetMapping("/{requestId}")
@@ -3,10 +3,12 @@ package ru.practicum.shareit.requests.mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.model.ItemRequest;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -31,10 +33,15 @@ public class DefaultRequestMapper implements RequestMapper {
 
     @Override
     public ItemRequestDto toItemRequestDto(ItemRequest itemRequest) {
+        return toItemRequestDto(itemRequest, itemRequest.getItems());
+    }
+
+    @Override
+    public ItemRequestDto toItemRequestDto(ItemRequest itemRequest, List<Item> items) {
         return new ItemRequestDto(itemRequest.getId(),
                 itemRequest.getDescription(),
                 userMapper.toUserDto(itemRequest.getRequester()),
-                itemRequest.getItems() != null ? itemRequest.getItems().stream()
+                items != null ? items.stream()
                         .map(itemMapper::toItemDto)
                         .collect(Collectors.toList()) : null,
                 itemRequest.getCreated());
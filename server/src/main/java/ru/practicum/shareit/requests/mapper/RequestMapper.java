@@ -1,10 +1,16 @@
 package ru.practicum.shareit.requests.mapper;
 
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.model.ItemRequest;
 
+import java.util.List;
+
 public interface RequestMapper {
     ItemRequest toItemRequest(ItemRequestDto itemRequestDto);
 
     ItemRequestDto toItemRequestDto(ItemRequest itemRequest);
+
+    // Вещи-ответы передаются отдельно, ленивая коллекция запроса не загружается
+    ItemRequestDto toItemRequestDto(ItemRequest itemRequest, List<Item> items);
 }
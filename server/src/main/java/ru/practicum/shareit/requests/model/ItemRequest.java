@@ -3,11 +3,15 @@ package ru.practicum.shareit.requests.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.practicum.shareit.cache.SecondLevelCacheConfig;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Data
@@ -18,7 +22,8 @@ import java.util.List;
 public class ItemRequest {
     @Id
     @Column(name = "request_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+    @SequenceGenerator(name = "requests_seq", sequenceName = "requests_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "description", nullable = false)
@@ -29,8 +34,16 @@ public class ItemRequest {
     private User requester;
 
     @OneToMany(mappedBy = "request", fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.REQUEST_ITEMS)
     private List<Item> items;
 
     @Column(name = "created", nullable = false)
     private LocalDateTime created;
+
+    // В БД время хранится с точностью до микросекунд. Усечение при сохранении оставляет в сущности то же значение,
+    // что и в строке: курсор страницы, построенный по сущности, указывает ровно на эту строку
+    @PrePersist
+    private void truncateCreated() {
+        created = created.truncatedTo(ChronoUnit.MICROS);
+    }
 }
\ No newline at end of file
@@ -4,76 +4,103 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.mapper.RequestMapper;
 import ru.practicum.shareit.requests.model.ItemRequest;
 import ru.practicum.shareit.requests.storage.RequestsRepository;
-import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class DbRequestService implements RequestService {
-    private final UserRepository userRepository;
+    private final EntityLookup entityLookup;
     private final RequestsRepository requestsRepository;
+    private final ItemRepository itemRepository;
     private final RequestMapper requestMapper;
 
-    public DbRequestService(UserRepository userRepository,
+    public DbRequestService(EntityLookup entityLookup,
                             RequestsRepository requestsRepository,
+                            ItemRepository itemRepository,
                             RequestMapper requestMapper) {
-        this.userRepository = userRepository;
+        this.entityLookup = entityLookup;
         this.requestsRepository = requestsRepository;
+        this.itemRepository = itemRepository;
         this.requestMapper = requestMapper;
     }
 
     @Override
+    @Transactional
     public ItemRequestDto createRequest(ItemRequestDto requestDto, long userId) {
         ItemRequest itemRequest = requestMapper.toItemRequest(requestDto);
 
-        itemRequest.setRequester(userRepository.findById(userId)
-                .orElseThrow(() -> new StorageException("Пользователя не существует")));
+        itemRequest.setRequester(entityLookup.getUser(userId, "Пользователя не существует"));
         itemRequest.setCreated(LocalDateTime.now());
 
         return requestMapper.toItemRequestDto(requestsRepository.save(itemRequest));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getOwnerRequests(long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователя не существует");
-        }
+        entityLookup.getUser(userId, "Пользователя не существует");
 
-        return requestsRepository.findAllByRequester_IdIs(userId, getSort()).stream()
-                .map(requestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDtos(requestsRepository.findAllByRequester_IdIs(userId, getSort()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllRequestPagination(int from, int size, long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователя не существует");
-        }
+        entityLookup.getUser(userId, "Пользователя не существует");
 
         Pageable pageable = PageRequest.of(from / size, size, getSort());
 
-        return requestsRepository.findAllByRequester_IdNot(userId, pageable).stream()
-                .map(requestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDtos(requestsRepository.findAllByRequester_IdNot(userId, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getAllRequestsAfter(LocalDateTime afterCreated, long afterId, int size, long userId) {
+        entityLookup.getUser(userId, "Пользователя не существует");
+
+        return toItemRequestDtos(requestsRepository.findAllByRequester_IdNotAfter(
+                userId, afterCreated, afterId, PageRequest.of(0, size)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getRequest(long requestId, long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new StorageException("Пользователя не существует");
-        }
+        entityLookup.getUser(userId, "Пользователя не существует");
 
         return requestMapper.toItemRequestDto(requestsRepository.findById(requestId).orElseThrow(
                 () -> new StorageException("Запроса на вещь не существует")));
     }
 
+    // Вещи-ответы для всей страницы запросов загружаются одним запросом и раскладываются по запросам
+    private List<ItemRequestDto> toItemRequestDtos(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<Item>> itemsByRequest = itemRepository.findAllByRequest_IdInOrderById(requestIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+
+        return requests.stream()
+                .map(request -> requestMapper.toItemRequestDto(request,
+                        itemsByRequest.getOrDefault(request.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
     private Sort getSort() {
         return Sort.by(Sort.Direction.DESC, "created");
     }
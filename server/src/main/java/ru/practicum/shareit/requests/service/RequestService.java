@@ -2,6 +2,7 @@ package ru.practicum.shareit.requests.service;
 
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestService {
@@ -11,5 +12,7 @@ public interface RequestService {
 
     List<ItemRequestDto> getAllRequestPagination(int from, int size, long userId);
 
+    List<ItemRequestDto> getAllRequestsAfter(LocalDateTime afterCreated, long afterId, int size, long userId);
+
     ItemRequestDto getRequest(long requestId, long userId);
 }
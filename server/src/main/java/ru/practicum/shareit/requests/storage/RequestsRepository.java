@@ -2,13 +2,30 @@ package ru.practicum.shareit.requests.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.requests.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestsRepository extends JpaRepository<ItemRequest, Long> {
+    // Автор загружается вместе с запросами, вещи-ответы - отдельно одним запросом на страницу
+    @EntityGraph(attributePaths = "requester")
     List<ItemRequest> findAllByRequester_IdIs(long userId, Sort sort);
 
+    @EntityGraph(attributePaths = "requester")
     List<ItemRequest> findAllByRequester_IdNot(long userId, Pageable pageable);
+
+    // Чужие запросы после ключа (created, id) в порядке убывания
+    @EntityGraph(attributePaths = "requester")
+    @Query("select r from ItemRequest r " +
+            "where r.requester.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequester_IdNotAfter(long userId,
+                                                    LocalDateTime created,
+                                                    long requestId,
+                                                    Pageable pageable);
 }
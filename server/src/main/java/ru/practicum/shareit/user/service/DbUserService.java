@@ -4,7 +4,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -13,7 +15,6 @@ import ru.practicum.shareit.user.storage.UserRepository;
 import javax.validation.ValidationException;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @Primary
@@ -21,16 +22,20 @@ import java.util.stream.Collectors;
 public class DbUserService implements UserService {
     private final UserMapper userMapper;
     private final UserRepository userRepository;
+    private final EntityLookup entityLookup;
 
     @Autowired
-    public DbUserService(UserMapper userMapper, UserRepository userRepository) {
+    public DbUserService(UserMapper userMapper, UserRepository userRepository, EntityLookup entityLookup) {
         this.userMapper = userMapper;
         this.userRepository = userRepository;
+        this.entityLookup = entityLookup;
     }
 
     @Override
+    @Transactional
     public UserDto createUser(UserDto userDto) {
-        if (userDto == null || !checkId(userDto)) {
+        // Новый пользователь приходит с id = 0, строк с таким id в БД не бывает
+        if (userDto == null || userDto.getId() != 0) {
             throw new ValidationException("Невозможно создать пользователя с существующим id");
         }
 
@@ -41,15 +46,14 @@ public class DbUserService implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto updateUser(UserDto userDto, long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ValidationException("Невозможно обновить пользователя не верный формат id");
-        }
+        User userFromDb = entityLookup.findUser(id).orElseThrow(
+                () -> new ValidationException("Невозможно обновить пользователя не верный формат id"));
 
         userDto.setId(id);
 
         User userToUpdate = userMapper.toUser(userDto);
-        User userFromDb = getUserFromOptional(userRepository.findById(id));
 
         if (userToUpdate.getName() == null) {
             userToUpdate.setName(userFromDb.getName());
@@ -60,33 +64,32 @@ public class DbUserService implements UserService {
         }
 
         User user = userRepository.save(userToUpdate);
+        entityLookup.remember(user);
         log.info("Пользователь обновлен: {}", user);
 
         return userMapper.toUserDto(user);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(userMapper::toUserDto)
-                .collect(Collectors.toList());
+        return userRepository.findAllDtos();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUser(long id) {
-        return userMapper.toUserDto(getUserFromOptional(userRepository.findById(id)));
+        return userMapper.toUserDto(getUserFromOptional(entityLookup.findUser(id)));
     }
 
     @Override
+    @Transactional
     public boolean deleteUser(long id) {
         userRepository.deleteById(id);
+        entityLookup.forgetUser(id);
         return true;
     }
 
-    private boolean checkId(UserDto userDto) {
-        return userDto.getId() == 0 && !userRepository.existsById(userDto.getId());
-    }
-
     private User getUserFromOptional(Optional<User> optionalUser) {
         return optionalUser.orElseThrow(() -> new StorageException("Ошибка получения пользователя"));
     }
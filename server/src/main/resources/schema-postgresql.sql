@@ -0,0 +1,65 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DROP INDEX IF EXISTS items_search_vector_idx;
+DROP INDEX IF EXISTS items_name_trgm_idx;
+DROP INDEX IF EXISTS items_description_trgm_idx;
+
+-- Поиск выдает только доступные вещи, поэтому индексы частичные по available
+-- Полнотекстовый индекс для ранжирования результатов поиска
+CREATE INDEX IF NOT EXISTS items_available_search_vector_idx ON items
+    USING GIN (to_tsvector('russian', name || ' ' || description)) WHERE available;
+
+-- Триграммные индексы для поиска подстроки через ILIKE '%text%'
+CREATE INDEX IF NOT EXISTS items_available_name_trgm_idx ON items
+    USING GIN (name gin_trgm_ops) WHERE available;
+
+CREATE INDEX IF NOT EXISTS items_available_description_trgm_idx ON items
+    USING GIN (description gin_trgm_ops) WHERE available;
+
+-- Переход с identity на последовательности Hibernate. Строки, вставленные в обход приложения, тоже берут id
+-- из последовательности: nextval - верхняя граница блока, с блоками Hibernate такое значение не пересекается.
+-- Последовательность сдвигается за id, уже выданные identity, и никогда не назад. setval с is_called = true
+-- выполняется при каждом запуске: у новой последовательности last_value = 1 еще не выдано, и без него
+-- первый блок снова начался бы с id 1, даже если в таблице уже есть строка с этим id
+ALTER TABLE users ALTER COLUMN user_id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN user_id SET DEFAULT nextval('users_seq');
+SELECT setval('users_seq',
+              GREATEST((SELECT max(user_id) FROM users), (SELECT last_value FROM users_seq)), TRUE);
+
+ALTER TABLE requests ALTER COLUMN request_id DROP IDENTITY IF EXISTS;
+ALTER TABLE requests ALTER COLUMN request_id SET DEFAULT nextval('requests_seq');
+SELECT setval('requests_seq',
+              GREATEST((SELECT max(request_id) FROM requests), (SELECT last_value FROM requests_seq)), TRUE);
+
+ALTER TABLE items ALTER COLUMN item_id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN item_id SET DEFAULT nextval('items_seq');
+SELECT setval('items_seq',
+              GREATEST((SELECT max(item_id) FROM items), (SELECT last_value FROM items_seq)), TRUE);
+
+ALTER TABLE bookings ALTER COLUMN booking_id DROP IDENTITY IF EXISTS;
+ALTER TABLE bookings ALTER COLUMN booking_id SET DEFAULT nextval('bookings_seq');
+SELECT setval('bookings_seq',
+              GREATEST((SELECT max(booking_id) FROM bookings), (SELECT last_value FROM bookings_seq)), TRUE);
+
+ALTER TABLE comments ALTER COLUMN comment_id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments ALTER COLUMN comment_id SET DEFAULT nextval('comments_seq');
+SELECT setval('comments_seq',
+              GREATEST((SELECT max(comment_id) FROM comments), (SELECT last_value FROM comments_seq)), TRUE);
+
+-- Период бронирования [start_date, end_date) и запрет пересечения периодов ожидающих и подтвержденных
+-- бронирований одной вещи. Ограничение строит GiST-индекс по (item_id, period) и проверяется при вставке,
+-- поэтому параллельные пересекающиеся бронирования не проходят без блокировки таблицы (код ошибки 23P01).
+-- Перед первым запуском пересекающиеся бронирования в БД нужно отклонить, иначе ограничение не создастся.
+-- Тело DO записано строкой в кавычках, чтобы точки с запятой внутри не разделяли скрипт
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS period TSRANGE
+    GENERATED ALWAYS AS (tsrange(start_date, end_date, '[)')) STORED;
+
+DO '
+BEGIN
+    IF NOT EXISTS(SELECT 1 FROM pg_constraint WHERE conname = ''bookings_no_overlap'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING GIST (item_id WITH =, period WITH &&) WHERE (status IN (''WAITING'', ''APPROVED''));
+    END IF;
+END
+';
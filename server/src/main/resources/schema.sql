@@ -1,3 +1,11 @@
+-- Id сущностей выдает Hibernate из последовательностей блоками по 50 значений (pooled),
+-- шаг последовательности должен совпадать с allocationSize в @SequenceGenerator сущности
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
     user_id
@@ -46,7 +54,8 @@ CREATE TABLE IF NOT EXISTS items
     item_id
     BIGINT
     GENERATED
-    ALWAYS AS
+    BY
+    DEFAULT AS
     IDENTITY
     PRIMARY
     KEY,
@@ -64,7 +73,7 @@ CREATE TABLE IF NOT EXISTS items
     user_id
 ) NOT NULL,
     available BOOLEAN NOT NULL,
-    request_id BIGINT REFERENCES requests
+    request_id BIGINT CONSTRAINT items_request_id_fkey REFERENCES requests
 (
     request_id
 )
@@ -132,4 +141,59 @@ CREATE TABLE IF NOT EXISTS comments
     item_id
 ) NOT NULL,
     creation_date TIMESTAMP WITHOUT TIME ZONE NOT NULL
-    );
\ No newline at end of file
+    );
+
+-- Версии для оптимистической блокировки вещей и бронирований (@Version). Столбцы добавляются отдельно,
+-- чтобы появиться и в уже созданных таблицах
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Последнее и следующее бронирования вещи, чтобы не сортировать всю историю бронирований при каждом чтении
+CREATE TABLE IF NOT EXISTS item_booking_summary
+(
+    item_id         BIGINT PRIMARY KEY REFERENCES items (item_id),
+    last_booking_id BIGINT REFERENCES bookings (booking_id),
+    last_end        TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id BIGINT REFERENCES bookings (booking_id),
+    next_start      TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- Сводки для вещей, созданных до ее появления: строятся по истории бронирований один раз при запуске,
+-- при равенстве дат берется бронирование с меньшим id (как в ItemBookingSummaryRepository)
+INSERT INTO item_booking_summary (item_id, last_booking_id, last_end, next_booking_id, next_start)
+SELECT i.item_id,
+       (SELECT b.booking_id FROM bookings AS b WHERE b.item_id = i.item_id
+        ORDER BY b.end_date, b.booking_id LIMIT 1),
+       (SELECT MIN(b.end_date) FROM bookings AS b WHERE b.item_id = i.item_id),
+       (SELECT b.booking_id FROM bookings AS b WHERE b.item_id = i.item_id
+        ORDER BY b.start_date DESC, b.booking_id LIMIT 1),
+       (SELECT MAX(b.start_date) FROM bookings AS b WHERE b.item_id = i.item_id)
+FROM items AS i
+WHERE NOT EXISTS (SELECT 1 FROM item_booking_summary AS s WHERE s.item_id = i.item_id);
+
+-- Индексы под запросы репозиториев. Имена индексов проверяются в QueryPlanTest
+-- Бронирования пользователя по дате начала (BookingRepositoryImpl)
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date DESC);
+
+-- Завершенное бронирование пользователя для вещи перед комментарием (findFirstByBooker_IdAndItem_IdOrderByEndAsc)
+CREATE INDEX IF NOT EXISTS bookings_booker_item_idx ON bookings (booker_id, item_id, end_date);
+
+-- Бронирования вещей владельца по дате начала и последние бронирования вещей
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_date);
+CREATE INDEX IF NOT EXISTS bookings_item_end_idx ON bookings (item_id, end_date);
+
+-- Бронирования вещей владельца в состояниях WAITING и REJECTED: соединение идет по item_id, статус стоит после него.
+-- Дата начала в индекс не входит: страница сортируется по всем вещам владельца, порядок внутри вещи не помогает,
+-- а лишний столбец делает индекс дороже индекса внешнего ключа на item_id
+DROP INDEX IF EXISTS bookings_item_status_start_idx;
+CREATE INDEX IF NOT EXISTS bookings_item_status_idx ON bookings (item_id, status);
+
+-- Вещи владельца по порядку id и вещи, добавленные по запросу
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner, item_id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id);
+
+-- Свои запросы по дате и лента чужих запросов в порядке (created, request_id)
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, created DESC);
+CREATE INDEX IF NOT EXISTS requests_created_idx ON requests (created DESC, request_id DESC);
@@ -0,0 +1,102 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Многострочная запись уходит JDBC-пакетами: число подготовленных запросов растет с числом пакетов
+// и блоков id последовательности, а не с числом строк
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class JdbcBatchingTest {
+    private static final int ROWS = 200;
+
+    private QueryCounter queryCounter;
+    private Statistics statistics;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void beforeEach() {
+        queryCounter = new QueryCounter(entityManagerFactory);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void insertsAreBatchedTest() {
+        List<User> users = IntStream.range(0, ROWS)
+                .mapToObj(i -> new User(null, "Vova" + i, "vova" + i + "@mail.ru"))
+                .collect(Collectors.toList());
+
+        queryCounter.measure(() -> {
+            userRepository.saveAll(users);
+            em.flush();
+            return null;
+        });
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        // 4 пакета вставок и 5 обращений к последовательности за блоками по 50 id
+        assertTrue(queryCounter.count() <= 10, () -> "Выполнено запросов: " + queryCounter.count());
+    }
+
+    @Test
+    void updatesAreBatchedTest() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = em.persist(new User(null, "Vitya", "vitya@mail.ru"));
+        User booker = em.persist(new User(null, "Vova", "vova@mail.ru"));
+        Item item = em.persist(new Item(null, "Дрель", "Ударная", true, owner, null));
+        List<Booking> bookings = new ArrayList<>();
+
+        for (int i = 0; i < ROWS; i++) {
+            bookings.add(em.persist(new Booking(null, now.plusDays(i), now.plusDays(i + 1), item, booker,
+                    BookingStatus.WAITING)));
+        }
+
+        em.flush();
+        em.clear();
+
+        List<Booking> loaded = bookingRepository.findAllById(bookings.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList()));
+
+        queryCounter.measure(() -> {
+            loaded.forEach(booking -> booking.setStatus(BookingStatus.APPROVED));
+            em.flush();
+            return null;
+        });
+
+        assertEquals(ROWS, statistics.getEntityUpdateCount());
+        assertTrue(queryCounter.count() <= 4, () -> "Выполнено запросов: " + queryCounter.count());
+    }
+}
@@ -0,0 +1,186 @@
+package ru.practicum.shareit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.mapper.DefaultBookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.booking.storage.BookingFilter;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.mapper.ItemMapperDefault;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.mapper.UserMapperDefault;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Сравнение выборки сущностей с маппингом в ответ и выборки сразу в DTO по памяти, выделенной потоком
+// на один запрос: список пользователей, страница поиска вещей и страница бронирований владельца.
+// Перед каждым запросом контекст персистентности очищается, как в начале нового HTTP-запроса
+@DataJpaTest
+@Slf4j
+@Import({ItemMapperDefault.class, UserMapperDefault.class, DefaultBookingMapper.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ProjectionAllocationBenchmarkTest {
+    private static final int BOOKERS = 100;
+    private static final int ITEMS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 500;
+    // Страница поиска вещей сущностями, без условия доступности
+    private static final String SEARCH_ALL = "select i from Item i " +
+            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))";
+    // Страница бронирований владельца сущностями вместе с вещью, владельцем и автором
+    private static final String OWNER_BOOKINGS = "select b from Booking b join fetch b.item i join fetch i.owner o " +
+            "join fetch b.booker where o.id = ?1 order by b.start desc, b.id desc";
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private User owner;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private BookingMapper bookingMapper;
+
+    @BeforeEach
+    void beforeEach() {
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        LocalDateTime now = LocalDateTime.now();
+        owner = new User(null, "Vitya", "vitya@mail.ru");
+        em.persist(owner);
+        Item[] items = new Item[ITEMS];
+
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = new Item(null, "Дрель " + i, "Ударная", true, owner, null);
+            em.persist(items[i]);
+        }
+
+        for (int i = 0; i < BOOKERS; i++) {
+            User booker = new User(null, "Vova" + i, "vova" + i + "@mail.ru");
+            em.persist(booker);
+            em.persist(new Booking(null, now.plusDays(i), now.plusDays(i + 1), items[i % ITEMS], booker,
+                    BookingStatus.WAITING));
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void allUsersTest() {
+        compare("Список пользователей",
+                () -> userRepository.findAll().stream()
+                        .map(userMapper::toUserDto)
+                        .sorted((first, second) -> Long.compare(first.getId(), second.getId()))
+                        .collect(Collectors.toList()),
+                () -> userRepository.findAllDtos());
+    }
+
+    @Test
+    void itemSearchTest() {
+        // Все вещи доступны, поэтому поиск без условия доступности находит те же строки
+        compare("Страница поиска вещей",
+                () -> em.getEntityManager().createQuery(SEARCH_ALL, Item.class)
+                        .setParameter(1, "дрель")
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList().stream()
+                        .map(itemMapper::toItemDto)
+                        .sorted((first, second) -> Long.compare(first.getId(), second.getId()))
+                        .collect(Collectors.toList()),
+                () -> itemRepository.findAvailable("дрель", PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    @Test
+    void ownerBookingsTest() {
+        BookingFilter filter = BookingFilter.builder()
+                .userId(owner.getId())
+                .owner(true)
+                .state(State.ALL)
+                .now(LocalDateTime.now())
+                .build();
+
+        compare("Страница бронирований владельца",
+                () -> em.getEntityManager().createQuery(OWNER_BOOKINGS, Booking.class)
+                        .setParameter(1, owner.getId())
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList().stream()
+                        .map(bookingMapper::toResponseBooking)
+                        .collect(Collectors.toList()),
+                () -> bookingRepository.findResponsesByFilter(filter, 0, PAGE_SIZE));
+    }
+
+    private <T> void compare(String name, Supplier<List<T>> entities, Supplier<List<T>> projection) {
+        List<T> expected = entities.get();
+        em.clear();
+        assertEquals(expected, projection.get());
+        em.clear();
+
+        long entityBytes = bytesPerRequest(entities);
+        long projectionBytes = bytesPerRequest(projection);
+
+        log.info("{}, {} строк: сущности с маппингом {} байт на запрос, выборка в DTO {} байт на запрос",
+                name, expected.size(), entityBytes, projectionBytes);
+
+        assertTrue(projectionBytes < entityBytes);
+    }
+
+    private long bytesPerRequest(Supplier<? extends List<?>> request) {
+        for (int i = 0; i < WARMUP; i++) {
+            request.get();
+            em.clear();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long total = 0;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long before = threadBean.getThreadAllocatedBytes(thread);
+            request.get();
+            total += threadBean.getThreadAllocatedBytes(thread) - before;
+            em.clear();
+        }
+
+        return total / ITERATIONS;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Подсчет SQL-запросов по статистике Hibernate.
+ * Считаются подготовленные запросы, поэтому в счет идут и дополнительные выборки связей (N+1).
+ */
+public class QueryCounter {
+    private final Statistics statistics;
+
+    public QueryCounter(EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Число соединений, полученных сессиями из пула
+    public long connections() {
+        return statistics.getConnectCount();
+    }
+
+    // Число завершенных транзакций
+    public long transactions() {
+        return statistics.getTransactionCount();
+    }
+
+    // Число загрузок сущностей заданного типа из БД
+    public long loads(Class<?> entityClass) {
+        return statistics.getEntityStatistics(entityClass.getName()).getLoadCount();
+    }
+
+    // Выполняет действие со сброшенным счетчиком, число его запросов доступно через count()
+    public <T> T measure(Supplier<T> action) {
+        statistics.clear();
+        return action.get();
+    }
+
+    // Выполняет действие и проверяет, что оно обошлось не больше чем в maxQueries запросов
+    public <T> T assertMaxQueries(long maxQueries, Supplier<T> action) {
+        T result = measure(action);
+        long queries = count();
+
+        assertTrue(queries <= maxQueries,
+                () -> "Ожидалось не больше " + maxQueries + " запросов, выполнено " + queries);
+        return result;
+    }
+
+    // Проверяет, что действие не выполняет запросов, например маппинг уже загруженных сущностей
+    public void assertNoQueries(Runnable action) {
+        assertMaxQueries(0, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
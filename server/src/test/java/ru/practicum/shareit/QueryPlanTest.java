@@ -0,0 +1,177 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Планы запросов репозиториев на заполненной базе (тесты работают на H2).
+ * Каждое обращение к таблице должно идти по индексу с условием, а не полным просмотром таблицы или индекса.
+ * Запросы повторяют SQL, который строится для методов репозиториев.
+ */
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class QueryPlanTest {
+    private static final String NOW = "TIMESTAMP '2030-01-01 00:00:00'";
+    // Обращение к таблице в плане H2: "PUBLIC"."BOOKINGS" "B" /* PUBLIC.BOOKINGS_BOOKER_START_IDX: BOOKER_ID = 5 */
+    // Бронирования владельца из BookingRepositoryImpl: вещь, владелец и автор загружаются вместе с бронированием
+    private static final String OWNER_BOOKINGS = "SELECT * FROM bookings AS b " +
+            "INNER JOIN items AS i ON b.item_id = i.item_id INNER JOIN users AS o ON i.owner = o.user_id " +
+            "INNER JOIN users AS u ON b.booker_id = u.user_id WHERE o.user_id = 5 ";
+    private static final Pattern TABLE_ACCESS = Pattern.compile("\"PUBLIC\"\\.\"(\\w+)\"(?: \"\\w+\")?\\s*/\\* ([^*]+) \\*/");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.execute("INSERT INTO users (name, email) " +
+                "SELECT 'user' || X, 'user' || X || '@mail.ru' FROM SYSTEM_RANGE(1, 200)");
+        jdbcTemplate.execute("INSERT INTO requests (description, requester_id, created) " +
+                "SELECT 'request' || X, (SELECT MIN(user_id) FROM users) + MOD(X, 200), " +
+                "DATEADD('MINUTE', X, " + NOW + ") FROM SYSTEM_RANGE(1, 1000)");
+        jdbcTemplate.execute("INSERT INTO items (name, description, owner, available, request_id) " +
+                "SELECT 'item' || X, 'description' || X, (SELECT MIN(user_id) FROM users) + MOD(X, 200), " +
+                "MOD(X, 20) = 0, " +
+                "CASE WHEN MOD(X, 10) = 0 THEN (SELECT MIN(request_id) FROM requests) + MOD(X, 1000) END " +
+                "FROM SYSTEM_RANGE(1, 2000)");
+        jdbcTemplate.execute("INSERT INTO bookings (start_date, end_date, booker_id, item_id, status) " +
+                "SELECT DATEADD('DAY', MOD(X, 100) - 50, " + NOW + "), " +
+                "DATEADD('DAY', MOD(X, 100) - 48, " + NOW + "), " +
+                "(SELECT MIN(user_id) FROM users) + MOD(X * 7, 200), " +
+                "(SELECT MIN(item_id) FROM items) + MOD(X, 2000), " +
+                "CASE WHEN MOD(X, 50) = 0 THEN 'WAITING' ELSE 'APPROVED' END " +
+                "FROM SYSTEM_RANGE(1, 20000)");
+        jdbcTemplate.execute("INSERT INTO comments (text, user_id, item_id, creation_date) " +
+                "SELECT 'comment' || X, (SELECT MIN(user_id) FROM users) + MOD(X, 200), " +
+                "(SELECT MIN(item_id) FROM items) + MOD(X, 2000), " + NOW + " FROM SYSTEM_RANGE(1, 4000)");
+        jdbcTemplate.execute("INSERT INTO item_booking_summary (item_id) SELECT item_id FROM items");
+        // H2 собирает статистику сам после первых тысяч вставленных строк, когда у каждой вещи еще одно
+        // бронирование. Без пересчета item_id выглядит уникальным и второй столбец индекса не учитывается.
+        // ANALYZE фиксирует транзакцию, поэтому каждый тест получает свою базу
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void bookerBookingsUseIndexTest() {
+        assertIndexAccess("SELECT * FROM bookings b INNER JOIN users u ON b.booker_id = u.user_id " +
+                "INNER JOIN items i ON b.item_id = i.item_id INNER JOIN users o ON i.owner = o.user_id " +
+                "WHERE u.user_id = 5 ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10 OFFSET 20");
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 ORDER BY start_date DESC LIMIT 10");
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 AND end_date < " + NOW +
+                " ORDER BY start_date DESC LIMIT 10");
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 AND start_date < " + NOW +
+                " AND end_date > " + NOW + " ORDER BY start_date DESC LIMIT 10");
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 AND start_date > " + NOW +
+                " ORDER BY start_date DESC LIMIT 10");
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 AND status = 'WAITING' " +
+                "ORDER BY start_date DESC LIMIT 10");
+    }
+
+    @Test
+    void bookerBookingsAfterCursorUseIndexTest() {
+        assertIndexAccess("SELECT * FROM bookings b WHERE b.booker_id = 5 " +
+                "AND (b.start_date < " + NOW + " OR (b.start_date = " + NOW + " AND b.booking_id < 100)) " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+    }
+
+    @Test
+    void lastBookerBookingForItemUseIndexTest() {
+        assertIndexAccess("SELECT * FROM bookings WHERE booker_id = 5 AND item_id = 7 ORDER BY end_date ASC LIMIT 1");
+    }
+
+    @Test
+    void ownerBookingsUseIndexTest() {
+        assertIndexAccess(OWNER_BOOKINGS + "ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+        assertIndexAccess(OWNER_BOOKINGS + "AND b.end_date < " + NOW +
+                " ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+        assertIndexAccess(OWNER_BOOKINGS + "AND " + NOW + " BETWEEN b.start_date AND b.end_date " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+        assertIndexAccess(OWNER_BOOKINGS + "AND b.start_date > " + NOW +
+                " ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+    }
+
+    @Test
+    void ownerBookingsByStatusUseIndexTest() {
+        String plan = explain(OWNER_BOOKINGS + "AND b.status = 'WAITING' " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+        assertTrue(plan.contains("BOOKINGS_ITEM_STATUS_IDX"), plan);
+        assertIndexAccess(OWNER_BOOKINGS + "AND b.status = 'REJECTED' " +
+                "ORDER BY b.start_date DESC, b.booking_id DESC LIMIT 10");
+    }
+
+    @Test
+    void lastAndNextBookingsForItemsUseIndexTest() {
+        assertIndexAccess("SELECT * FROM bookings b WHERE b.item_id IN (1, 2, 3) " +
+                "AND b.end_date = (SELECT MIN(l.end_date) FROM bookings l WHERE l.item_id = b.item_id)");
+        assertIndexAccess("SELECT * FROM bookings b WHERE b.item_id IN (1, 2, 3) " +
+                "AND b.start_date = (SELECT MAX(n.start_date) FROM bookings n WHERE n.item_id = b.item_id)");
+        assertIndexAccess("SELECT * FROM item_booking_summary s " +
+                "LEFT JOIN bookings l ON s.last_booking_id = l.booking_id " +
+                "LEFT JOIN bookings n ON s.next_booking_id = n.booking_id " +
+                "WHERE s.item_id IN (1, 2, 3)");
+    }
+
+    @Test
+    void ownerItemsUseIndexTest() {
+        assertIndexAccess("SELECT * FROM items WHERE owner = 5 ORDER BY item_id LIMIT 10");
+        assertIndexAccess("SELECT * FROM items WHERE owner = 5 AND item_id > 100 ORDER BY item_id LIMIT 10");
+        assertIndexAccess("SELECT * FROM items WHERE request_id IN (1, 2, 3)");
+    }
+
+    @Test
+    void itemCommentsUseIndexTest() {
+        assertIndexAccess("SELECT * FROM comments WHERE item_id = 5");
+        assertIndexAccess("SELECT * FROM comments c INNER JOIN users u ON c.user_id = u.user_id " +
+                "WHERE c.item_id IN (1, 2, 3) ORDER BY c.comment_id");
+    }
+
+    @Test
+    void requestsUseIndexTest() {
+        assertIndexAccess("SELECT * FROM requests WHERE requester_id = 5 ORDER BY created DESC");
+    }
+
+    @Test
+    void otherUsersRequestsReadInCreatedOrderTest() {
+        // Условие requester_id <> ? не сужает выборку, запросы читаются по индексу в порядке даты до заполнения страницы
+        String plan = explain("SELECT * FROM requests WHERE requester_id <> 5 " +
+                "ORDER BY created DESC LIMIT 10");
+        assertTrue(plan.contains("REQUESTS_CREATED_IDX"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+
+        plan = explain("SELECT * FROM requests r WHERE r.requester_id <> 5 " +
+                "AND (r.created < " + NOW + " OR (r.created = " + NOW + " AND r.request_id < 100)) " +
+                "ORDER BY r.created DESC, r.request_id DESC LIMIT 10");
+        assertTrue(plan.contains("REQUESTS_CREATED_IDX"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    // Каждая таблица в плане читается по индексу с условием (после двоеточия), а не перебором
+    private void assertIndexAccess(String sql) {
+        String plan = explain(sql);
+        Matcher matcher = TABLE_ACCESS.matcher(plan);
+        Set<String> checked = new HashSet<>();
+
+        while (matcher.find()) {
+            checked.add(matcher.group(1));
+            assertTrue(matcher.group(2).contains(":"), () -> "Полный просмотр " + matcher.group(1) + ":\n" + plan);
+        }
+
+        assertFalse(checked.isEmpty(), () -> "Не удалось разобрать план:\n" + plan);
+    }
+}
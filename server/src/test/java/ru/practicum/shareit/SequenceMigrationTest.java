@@ -0,0 +1,79 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Переход с identity на последовательности на базе, где identity уже выдал id 1: следующий блок Hibernate
+// (nextval - 49 .. nextval при шаге 50) не должен снова начинаться с 1. Скрипты выполняются в отдельной схеме,
+// поэтому тест запускается только на PostgreSQL из переменных окружения DB_HOST, DB_PORT, DB_NAME
+@EnabledIfEnvironmentVariable(named = "DB_HOST", matches = ".+")
+class SequenceMigrationTest {
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final String schema = "sequence_migration_" + UUID.randomUUID().toString().replace("-", "");
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        dataSource = new SingleConnectionDataSource("jdbc:postgresql://" + System.getenv("DB_HOST") + ":" +
+                System.getenv("DB_PORT") + "/" + System.getenv("DB_NAME"),
+                System.getenv("POSTGRES_USER"), System.getenv("POSTGRES_PASSWORD"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SCHEMA " + schema);
+        // Расширения и их классы операторов лежат в public
+        jdbcTemplate.execute("SET search_path TO " + schema + ", public");
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("DROP SCHEMA " + schema + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void singleIdentityRowIsNotReusedTest() {
+        // Таблицы из schema.sql еще с identity: единственные строки получают id 1
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Vitya', 'vitya@mail.ru')");
+        jdbcTemplate.update("INSERT INTO items (name, description, owner, available) " +
+                "VALUES ('Вещь', 'Супер', 1, TRUE)");
+
+        migrate();
+
+        assertTrue(nextBlockStart("users_seq") > 1);
+        assertTrue(nextBlockStart("items_seq") > 1);
+    }
+
+    @Test
+    void repeatedStartupDoesNotMoveSequenceBackTest() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Vitya', 'vitya@mail.ru')");
+        migrate();
+        long firstBlockStart = nextBlockStart("users_seq");
+
+        migrate();
+
+        assertTrue(nextBlockStart("users_seq") >= firstBlockStart + ALLOCATION_SIZE);
+    }
+
+    private void migrate() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema-postgresql.sql")).execute(dataSource);
+    }
+
+    private long nextBlockStart(String sequence) {
+        Long hi = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+
+        return hi - ALLOCATION_SIZE + 1;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.RequestBookingDto;
+import ru.practicum.shareit.booking.service.DbBookingService;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoBookings;
+import ru.practicum.shareit.item.service.DbItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.DbUserService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Без @Transactional: границы транзакций задают сами сервисы, как при обработке HTTP-запросов
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ServiceTransactionsTest {
+    private UserDto owner;
+    private UserDto booker;
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private DbUserService userService;
+
+    @Autowired
+    private DbItemService itemService;
+
+    @Autowired
+    private DbBookingService bookingService;
+
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @SpyBean
+    private UserMapper userMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalDateTime now = LocalDateTime.now();
+        owner = userService.createUser(new UserDto(0, "Vitya", "vitya@mail.ru"));
+        booker = userService.createUser(new UserDto(0, "Vova", "vova@mail.ru"));
+
+        for (int i = 0; i < 3; i++) {
+            ItemDto item = itemService.createItem(new ItemDto(0L, "Вещь " + i, "Супер", true, null), owner.getId());
+            bookingService.create(new RequestBookingDto(item.getId(), now.plusDays(1), now.plusDays(2)),
+                    booker.getId());
+        }
+
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @Test
+    void getterUsesOneConnectionTest() {
+        List<ItemDtoBookings> items = queryCounter.measure(() -> itemService.getAllUserItems(owner.getId(), 0, 10));
+
+        assertEquals(3, items.size());
+        assertTrue(queryCounter.count() > 1);
+        assertEquals(1, queryCounter.connections());
+        assertEquals(1, queryCounter.transactions());
+    }
+
+    @Test
+    void writeUseCaseUsesOneConnectionTest() {
+        LocalDateTime now = LocalDateTime.now();
+
+        queryCounter.measure(() -> bookingService.create(new RequestBookingDto(1L, now.plusDays(3),
+                now.plusDays(4)), booker.getId()));
+
+        assertTrue(queryCounter.count() > 1);
+        assertEquals(1, queryCounter.connections());
+        assertEquals(1, queryCounter.transactions());
+    }
+
+    @Test
+    void getterRunsInReadOnlySessionTest() {
+        List<Object> state = new ArrayList<>();
+
+        Mockito.doAnswer(invocation -> {
+            Session session = entityManager.unwrap(Session.class);
+            state.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            state.add(session.getHibernateFlushMode());
+            state.add(session.isDefaultReadOnly());
+            return invocation.callRealMethod();
+        }).when(userMapper).toUserDto(Mockito.any(User.class));
+
+        assertEquals(owner, userService.getUser(owner.getId()));
+        assertEquals(List.of(true, FlushMode.MANUAL, true), state);
+    }
+
+    @Test
+    void getterBuildsMissingSummaryWithoutSavingTest() {
+        // Вещь без сводки: сводка строится по истории бронирований только для ответа, чтение ничего не пишет
+        summaryRepository.deleteById(1L);
+
+        ItemDtoBookings item = itemService.getItem(1L, owner.getId());
+
+        assertEquals(1L, item.getNextBooking().getId());
+        assertFalse(summaryRepository.findById(1L).isPresent());
+    }
+}
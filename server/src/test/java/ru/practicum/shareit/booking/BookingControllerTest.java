@@ -10,6 +10,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionsDto;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -24,6 +27,7 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -130,6 +134,35 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(responseBookingDto.getStatus().toString())));
     }
 
+    @Test
+    void approveBookingsTest() throws Exception {
+        BookingDecisionsDto decisions = new BookingDecisionsDto(List.of(new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false)));
+
+        Mockito
+                .when(mokBookingService.approveBookings(decisions.getDecisions(), 1L))
+                .thenReturn(List.of(new BookingDecisionResultDto(1L, BookingStatus.APPROVED, null),
+                        new BookingDecisionResultDto(2L, null, "Бронирования не существует")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(decisions))
+                        .header("X-Sharer-User-Id", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].bookingId", is(1)))
+                .andExpect(jsonPath("$[0].status", is(BookingStatus.APPROVED.toString())))
+                .andExpect(jsonPath("$[0].error", nullValue()))
+                .andExpect(jsonPath("$[1].bookingId", is(2)))
+                .andExpect(jsonPath("$[1].status", nullValue()))
+                .andExpect(jsonPath("$[1].error", is("Бронирования не существует")));
+
+        Mockito.verify(mokBookingService, Mockito.never())
+                .approveBooking(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean());
+    }
+
     @Test
     void correctGetBooking() throws Exception {
         Mockito
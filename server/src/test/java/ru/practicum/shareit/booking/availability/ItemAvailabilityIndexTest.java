@@ -0,0 +1,111 @@
+package ru.practicum.shareit.booking.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemAvailabilityIndexTest {
+    private final BookingRepository mokBookingRepository = Mockito.mock(BookingRepository.class);
+    private final ItemRepository mokItemRepository = Mockito.mock(ItemRepository.class);
+    private final ItemAvailabilityIndex index = new ItemAvailabilityIndex(mokBookingRepository, mokItemRepository, 2);
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    private final LocalDateTime end = start.plusDays(2);
+
+    @Test
+    void loadsItemOnceTest() {
+        stubItem(1L, new BookingInterval(1L, start, end));
+
+        assertFalse(index.isFree(1L, start.plusDays(1), end.plusDays(1)));
+        assertTrue(index.isFree(1L, end, end.plusDays(1)));
+        assertEquals(end, index.nextFree(1L, start, Duration.ofDays(1)));
+
+        Mockito.verify(mokItemRepository, Mockito.times(1)).existsById(1L);
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findIntervals(Mockito.eq(1L), Mockito.eq(BookingStatus.OCCUPYING), Mockito.any());
+    }
+
+    @Test
+    void missingItemTest() {
+        assertThrows(StorageException.class, () -> index.isFree(5L, start, end));
+        Mockito.verifyNoInteractions(mokBookingRepository);
+    }
+
+    @Test
+    void updatesOnBookingEventsTest() {
+        stubItem(1L);
+        assertTrue(index.isFree(1L, start, end));
+
+        index.onBookingChanged(new BookingChangedEvent(1L, new BookingInterval(1L, start, end),
+                BookingStatus.WAITING));
+        assertFalse(index.isFree(1L, start, end));
+
+        index.onBookingChanged(new BookingChangedEvent(1L, new BookingInterval(1L, start, end),
+                BookingStatus.APPROVED));
+        assertFalse(index.isFree(1L, start, end));
+
+        index.onBookingChanged(new BookingChangedEvent(1L, new BookingInterval(1L, start, end),
+                BookingStatus.REJECTED));
+        assertTrue(index.isFree(1L, start, end));
+
+        // Все изменения применены в памяти, повторной загрузки не было
+        Mockito.verify(mokItemRepository, Mockito.times(1)).existsById(1L);
+    }
+
+    @Test
+    void bookingDuringLoadIsNotLostTest() {
+        Mockito.when(mokItemRepository.existsById(1L)).thenReturn(true);
+        // Бронирование фиксируется, пока загрузка читает старые данные
+        Mockito.when(mokBookingRepository.findIntervals(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    index.onBookingChanged(new BookingChangedEvent(1L, new BookingInterval(1L, start, end),
+                            BookingStatus.WAITING));
+                    return List.of();
+                })
+                .thenReturn(List.of(new BookingInterval(1L, start, end)));
+
+        assertTrue(index.isFree(1L, start, end));
+        assertFalse(index.isFree(1L, start, end));
+    }
+
+    @Test
+    void metricsTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+        stubItem(1L);
+        stubItem(2L);
+        stubItem(3L);
+
+        index.isFree(1L, start, end);
+        index.isFree(1L, start, end);
+        index.isFree(2L, start, end);
+        index.isFree(3L, start, end);
+
+        assertEquals(1, registry.get("cache.gets")
+                .tags("cache", ItemAvailabilityIndex.NAME, "result", "hit").functionCounter().count());
+        assertEquals(3, registry.get("cache.gets")
+                .tags("cache", ItemAvailabilityIndex.NAME, "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions")
+                .tag("cache", ItemAvailabilityIndex.NAME).functionCounter().count());
+        assertEquals(2, registry.get("cache.size")
+                .tag("cache", ItemAvailabilityIndex.NAME).gauge().value());
+    }
+
+    private void stubItem(long itemId, BookingInterval... intervals) {
+        Mockito.when(mokItemRepository.existsById(itemId)).thenReturn(true);
+        Mockito.when(mokBookingRepository.findIntervals(Mockito.eq(itemId), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(intervals));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemIntervalsTest {
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 0, 0);
+    // Длинное бронирование 2 покрывает короткое 3: окно после 3 должно учитывать конец 2
+    private final ItemIntervals intervals = ItemIntervals.of(List.of(
+            new BookingInterval(3L, day(3), day(4)),
+            new BookingInterval(1L, day(0), day(1)),
+            new BookingInterval(2L, day(2), day(6)),
+            new BookingInterval(4L, day(8), day(9))));
+
+    @Test
+    void isFreeTest() {
+        assertTrue(intervals.isFree(day(1), day(2)));
+        assertTrue(intervals.isFree(day(6), day(8)));
+        assertTrue(intervals.isFree(day(9), day(20)));
+        assertFalse(intervals.isFree(day(5), day(7)));
+        assertFalse(intervals.isFree(day(0).plusHours(12), day(1).plusHours(1)));
+        assertFalse(intervals.isFree(day(7), day(8).plusMinutes(1)));
+        assertTrue(ItemIntervals.of(List.of()).isFree(day(0), day(1)));
+    }
+
+    @Test
+    void nextFreeTest() {
+        assertEquals(day(1), intervals.nextFree(day(0), Duration.ofDays(1)));
+        assertEquals(day(6), intervals.nextFree(day(0), Duration.ofDays(2)));
+        assertEquals(day(9), intervals.nextFree(day(3), Duration.ofDays(3)));
+        assertEquals(day(6).plusHours(1), intervals.nextFree(day(6).plusHours(1), Duration.ofHours(1)));
+        assertEquals(day(20), intervals.nextFree(day(20), Duration.ofDays(100)));
+    }
+
+    @Test
+    void withAndWithoutTest() {
+        ItemIntervals changed = intervals.with(new BookingInterval(5L, day(6), day(8)), now);
+
+        assertFalse(changed.isFree(day(6), day(7)));
+        assertEquals(day(9), changed.nextFree(day(1).plusHours(1), Duration.ofDays(1)));
+        assertEquals(5, changed.size());
+        assertEquals(4, intervals.size());
+
+        // Повторное событие о том же бронировании заменяет интервал, а не дублирует его
+        assertEquals(5, changed.with(new BookingInterval(5L, day(6), day(7)), now).size());
+        assertTrue(changed.without(2L, now).isFree(day(4), day(6)));
+        // Закончившиеся бронирования выбрасываются при изменении
+        assertEquals(2, changed.without(5L, day(5)).size());
+    }
+
+    private LocalDateTime day(int day) {
+        return now.plusDays(day);
+    }
+}
@@ -0,0 +1,183 @@
+package ru.practicum.shareit.booking.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.RequestBookingDto;
+import ru.practicum.shareit.booking.service.DbBookingService;
+import ru.practicum.shareit.exeption.ConflictException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Полосатые блокировки вещей против блокировки строки вещи в БД (SELECT ... FOR UPDATE) на одинаковой нагрузке:
+// потоки бронируют случайные дни у небольшого числа вещей, проверяя пересечение и вставляя бронь в одной транзакции.
+// В H2 нет ограничения bookings_no_overlap, поэтому от пересечений защищает только блокировка
+@Slf4j
+@SpringBootTest(properties = "shareit.booking.item-locks.enabled=true")
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemLocksBenchmarkTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 400;
+    private static final int ITEMS = 16;
+    private static final int DAYS = 30;
+
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+    private long firstItemId;
+    private long bookerId;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ItemLocks itemLocks;
+
+    @Autowired
+    private DbBookingService bookingService;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.execute("INSERT INTO users (name, email) VALUES ('Vitya', 'vitya@mail.ru'), " +
+                "('Booker', 'booker@mail.ru')");
+        long ownerId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE name = 'Vitya'", Long.class);
+        bookerId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE name = 'Booker'", Long.class);
+        jdbcTemplate.execute("INSERT INTO items (name, description, owner, available) " +
+                "SELECT 'Вещь' || X, 'Супер', " + ownerId + ", TRUE FROM SYSTEM_RANGE(1, " + ITEMS + ")");
+        firstItemId = jdbcTemplate.queryForObject("SELECT MIN(item_id) FROM items", Long.class);
+    }
+
+    @Test
+    void concurrentOverlappingCreatesTest() throws Exception {
+        List<Boolean> results = runConcurrently(THREADS, thread -> {
+            try {
+                bookingService.create(new RequestBookingDto(firstItemId, start.plusHours(thread),
+                        start.plusDays(1).plusHours(thread)), bookerId);
+                return true;
+            } catch (ConflictException e) {
+                return false;
+            }
+        });
+
+        assertEquals(1, results.stream().filter(created -> created).count());
+        assertEquals(0, countOverlaps());
+    }
+
+    @Test
+    void stripedLocksVersusRowLocksTest() throws Exception {
+        long stripedNanos = book(itemId -> itemLocks.lockUntilCompletion(itemId));
+        int stripedBookings = countBookings();
+
+        assertEquals(0, countOverlaps());
+        jdbcTemplate.update("DELETE FROM bookings");
+
+        long rowLockNanos = book(itemId -> jdbcTemplate.queryForObject(
+                "SELECT item_id FROM items WHERE item_id = ? FOR UPDATE", Long.class, itemId));
+        int rowLockBookings = countBookings();
+
+        log.info("Бронирования {} вещей в {} потоков, {} операций: полосатые блокировки {} броней " +
+                        "за {} мс, блокировка строки {} броней за {} мс",
+                ITEMS, THREADS, THREADS * OPERATIONS, stripedBookings, stripedNanos / 1_000_000,
+                rowLockBookings, rowLockNanos / 1_000_000);
+
+        assertEquals(0, countOverlaps());
+        // Попыток больше, чем свободных дней: большая часть отклонена проверкой пересечения
+        assertTrue(stripedBookings <= ITEMS * DAYS);
+        assertTrue(rowLockBookings <= ITEMS * DAYS);
+    }
+
+    // Каждый поток бронирует случайный день случайной вещи, блокируя ее переданным способом
+    private long book(LongConsumer lock) throws Exception {
+        long started = System.nanoTime();
+
+        runConcurrently(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            for (int i = 0; i < OPERATIONS; i++) {
+                long itemId = firstItemId + random.nextInt(ITEMS);
+                Timestamp from = Timestamp.valueOf(start.plusDays(random.nextInt(DAYS)));
+                Timestamp to = Timestamp.valueOf(from.toLocalDateTime().plusDays(1));
+
+                transactionTemplate.executeWithoutResult(status -> {
+                    lock.accept(itemId);
+
+                    Integer overlapping = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings " +
+                            "WHERE item_id = ? AND status IN ('WAITING', 'APPROVED') " +
+                            "AND start_date < ? AND end_date > ?", Integer.class, itemId, to, from);
+
+                    if (overlapping == 0) {
+                        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, booker_id, item_id, status) " +
+                                "VALUES (?, ?, ?, ?, 'WAITING')", from, to, bookerId, itemId);
+                    }
+                });
+            }
+
+            return true;
+        });
+
+        return System.nanoTime() - started;
+    }
+
+    private <T> List<T> runConcurrently(int threads, ThreadTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        List<Future<T>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return task.run(thread);
+                }));
+            }
+
+            List<T> results = new ArrayList<>();
+
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int countBookings() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings", Integer.class);
+    }
+
+    private int countOverlaps() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings a JOIN bookings b " +
+                "ON a.item_id = b.item_id AND a.booking_id < b.booking_id " +
+                "AND a.start_date < b.end_date AND b.start_date < a.end_date", Integer.class);
+    }
+
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+
+class ItemLocksTest {
+    private final ItemLocks locks = new ItemLocks(true, 4);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete();
+        }
+    }
+
+    @Test
+    void disabledLocksTest() {
+        ItemLocks disabled = new ItemLocks(false, 4);
+
+        assertFalse(disabled.lockUntilCompletion(1L));
+    }
+
+    @Test
+    void lockOutsideTransactionTest() {
+        assertThrows(IllegalStateException.class, () -> locks.lockUntilCompletion(1L));
+    }
+
+    @Test
+    @Timeout(10)
+    void lockIsHeldUntilTransactionCompletesTest() throws Exception {
+        locks.bindTo(registry);
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(locks.lockUntilCompletion(1L));
+
+        // Вещь 5 в той же полосе, что и 1: второй поток ждет завершения транзакции первого
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            locks.lockUntilCompletion(5L);
+            complete();
+        });
+
+        while (registry.get("booking.item.lock.queue").tag("stripe", "1").gauge().value() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertFalse(other.isDone());
+        complete();
+        other.get();
+
+        assertEquals(2, registry.get("booking.item.lock.acquisitions").tag("stripe", "1")
+                .functionCounter().count());
+        assertEquals(1, registry.get("booking.item.lock.wait").tag("stripe", "1").functionTimer().count());
+        assertEquals(0, registry.get("booking.item.lock.acquisitions").tag("stripe", "2")
+                .functionCounter().count());
+    }
+
+    private static void complete() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
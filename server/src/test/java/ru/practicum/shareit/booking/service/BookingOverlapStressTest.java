@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.RequestBookingDto;
+import ru.practicum.shareit.exeption.ConflictException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.DbItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.DbUserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Параллельные брони одной вещи на пересекающиеся даты: проверку в приложении проходят несколько потоков сразу,
+// лишние вставки отклоняет ограничение bookings_no_overlap. Ограничений-исключений в H2 нет,
+// поэтому тест запускается только на PostgreSQL из переменных окружения DB_HOST, DB_PORT, DB_NAME
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_HOST", matches = ".+")
+class BookingOverlapStressTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    private long itemId;
+    private List<Long> bookers;
+
+    @Autowired
+    private DbUserService userService;
+
+    @Autowired
+    private DbItemService itemService;
+
+    @Autowired
+    private DbBookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        // База общая с другими запусками: пользователи с уникальными адресами и своя вещь на каждый тест
+        UserDto owner = userService.createUser(new UserDto(0, "Owner", UUID.randomUUID() + "@mail.ru"));
+        itemId = itemService.createItem(new ItemDto(0L, "Дрель", "Ударная", true, null), owner.getId()).getId();
+        bookers = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userService.createUser(new UserDto(0, "Booker" + i, UUID.randomUUID() + "@mail.ru")).getId());
+        }
+    }
+
+    @Test
+    void onlyOneOfConcurrentOverlappingBookingsSucceedsTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                // Каждый поток берет интервал, пересекающийся со всеми остальными интервалами раунда
+                LocalDateTime roundStart = start.plusDays(round * 2L);
+                CountDownLatch ready = new CountDownLatch(THREADS);
+                List<Future<Boolean>> results = new ArrayList<>();
+
+                for (int i = 0; i < THREADS; i++) {
+                    long bookerId = bookers.get(i);
+                    RequestBookingDto request = new RequestBookingDto(itemId,
+                            roundStart.plusMinutes(i), roundStart.plusDays(1).plusMinutes(i));
+
+                    results.add(executor.submit(() -> {
+                        ready.countDown();
+                        ready.await();
+
+                        try {
+                            bookingService.create(request, bookerId);
+                            return true;
+                        } catch (ConflictException e) {
+                            return false;
+                        } catch (DataIntegrityViolationException e) {
+                            fail("Пересечение должно приводить к ConflictException", e);
+                            return false;
+                        }
+                    }));
+                }
+
+                int created = 0;
+
+                for (Future<Boolean> result : results) {
+                    if (result.get(30, TimeUnit.SECONDS)) {
+                        created++;
+                    }
+                }
+
+                assertEquals(1, created, "Раунд " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Итог по базе: ни одна пара занимающих дат броней вещи не пересекается
+        Integer overlaps = jdbcTemplate.queryForObject("select count(*) from bookings a join bookings b "
+                + "on a.item_id = b.item_id and a.booking_id < b.booking_id "
+                + "and a.start_date < b.end_date and b.start_date < a.end_date "
+                + "where a.item_id = ? and a.status in ('WAITING', 'APPROVED') "
+                + "and b.status in ('WAITING', 'APPROVED')", Integer.class, itemId);
+
+        assertEquals(0, overlaps);
+        assertEquals(ROUNDS, jdbcTemplate.queryForObject("select count(*) from bookings where item_id = ?",
+                Integer.class, itemId));
+    }
+}
@@ -3,33 +3,47 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.availability.BookingChangedEvent;
+import ru.practicum.shareit.booking.availability.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.RequestBookingDto;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.mapper.DefaultBookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.booking.storage.BookingFilter;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.exeption.ConflictException;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.exeption.ValidationException;
+import ru.practicum.shareit.item.cache.ItemBookingsChangedEvent;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapperDefault;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
+import ru.practicum.shareit.requests.storage.RequestsRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapperDefault;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,11 +56,17 @@ class DbBookingServiceTest {
     private final UserRepository mokUserRepository = Mockito.mock(UserRepository.class);
     private final ItemRepository mokItemRepository = Mockito.mock(ItemRepository.class);
     private final BookingRepository mokBookingRepository = Mockito.mock(BookingRepository.class);
+    private final ItemBookingSummaryRepository mokSummaryRepository = Mockito.mock(ItemBookingSummaryRepository.class);
+    private final RequestsRepository mokRequestsRepository = Mockito.mock(RequestsRepository.class);
+    private final ApplicationEventPublisher mokEventPublisher = Mockito.mock(ApplicationEventPublisher.class);
     private final DbBookingService bookingService = new DbBookingService(
-            mokUserRepository,
             mokItemRepository,
             mokBookingRepository,
-            bookingMapper);
+            mokSummaryRepository,
+            new EntityLookup(mokUserRepository, mokItemRepository, mokBookingRepository, mokRequestsRepository),
+            new ItemLocks(false, 1),
+            bookingMapper,
+            mokEventPublisher);
     private final LocalDateTime start = LocalDateTime.now().plusDays(1);
     private final LocalDateTime end = LocalDateTime.now().plusDays(3);
     private final User user = new User(1L, "Vitya", "vitya@mail.ru");
@@ -67,14 +87,6 @@ class DbBookingServiceTest {
 
     @Test
     void correctCreateBookingTest() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item));
@@ -84,7 +96,7 @@ class DbBookingServiceTest {
                 .thenReturn(Optional.of(booker));
 
         Mockito
-                .when(mokBookingRepository.save(Mockito.any(Booking.class)))
+                .when(mokBookingRepository.saveAndFlush(Mockito.any(Booking.class)))
                 .thenReturn(bookingFromBd);
 
         assertEquals(responseBookingDto, bookingService.create(requestBookingDto, 2L));
@@ -93,212 +105,217 @@ class DbBookingServiceTest {
                 .findById(1L);
         Mockito.verify(mokUserRepository, Mockito.times(1))
                 .findById(2L);
+        Mockito.verify(mokUserRepository, Mockito.never())
+                .existsById(Mockito.anyLong());
+        Mockito.verify(mokItemRepository, Mockito.never())
+                .existsById(Mockito.anyLong());
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .save(Mockito.any(Booking.class));
+                .saveAndFlush(Mockito.any(Booking.class));
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .updateLastBooking(1L, bookingFromBd);
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .updateNextBooking(1L, bookingFromBd);
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemBookingsChangedEvent(1L));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new BookingChangedEvent(1L, new BookingInterval(1L, start, end), BookingStatus.WAITING));
     }
 
     @Test
     void createBookingWhenBookerNotExist() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 2L));
 
+        Mockito.verify(mokItemRepository, Mockito.never())
+                .findById(Mockito.anyLong());
         Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+                .saveAndFlush(Mockito.any(Booking.class));
     }
 
     @Test
     void createBookingWhenItemNotExist() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
 
         Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokItemRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 2L));
 
         Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+                .saveAndFlush(Mockito.any(Booking.class));
     }
 
     @Test
-    void createBookingWhenItemNotExistInDB() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+    void createBookingWhenItemNotAvailable() {
+        item.setAvailable(false);
 
         Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
 
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
-                .thenReturn(Optional.empty());
+                .thenReturn(Optional.of(item));
 
-        assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 2L));
+        assertThrows(ValidationException.class, () -> bookingService.create(requestBookingDto, 2L));
 
         Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+                .saveAndFlush(Mockito.any(Booking.class));
+
+        item.setAvailable(true);
     }
 
     @Test
-    void createBookingWhenBookerNotExistInDB() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
+    void createBookingWhenBookerIsOwner() {
         Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
 
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item));
 
-        Mockito
-                .when(mokUserRepository.findById(Mockito.anyLong()))
-                .thenReturn(Optional.empty());
-
-        assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 2L));
+        assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 1L));
 
         Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+                .saveAndFlush(Mockito.any(Booking.class));
     }
 
     @Test
-    void createBookingWhenItemNotAvailable() {
-        item.setAvailable(false);
+    void createOverlappingBookingTest() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
 
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokItemRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(item));
 
         Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
+                .when(mokBookingRepository.existsByItem_IdAndStatusInAndStartBeforeAndEndAfter(
+                        1L, BookingStatus.OCCUPYING, end, start))
                 .thenReturn(true);
 
+        assertThrows(ConflictException.class, () -> bookingService.create(requestBookingDto, 2L));
+
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .saveAndFlush(Mockito.any(Booking.class));
+    }
+
+    @Test
+    void createBookingRejectedByExclusionConstraintTest() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
+
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item));
 
-        assertThrows(ValidationException.class, () -> bookingService.create(requestBookingDto, 2L));
+        // Параллельное бронирование прошло проверку одновременно, вставку отклонило ограничение bookings_no_overlap
+        Mockito
+                .when(mokBookingRepository.saveAndFlush(Mockito.any(Booking.class)))
+                .thenThrow(new DataIntegrityViolationException("bookings_no_overlap",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        assertThrows(ConflictException.class, () -> bookingService.create(requestBookingDto, 2L));
 
-        item.setAvailable(true);
+        Mockito.verify(mokSummaryRepository, Mockito.never())
+                .updateLastBooking(Mockito.anyLong(), Mockito.any(Booking.class));
     }
 
     @Test
-    void createBookingWhenBookerIsOwner() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
+    void createBookingOtherConstraintViolationIsNotConflictTest() {
         Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booker));
 
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item));
 
-        assertThrows(StorageException.class, () -> bookingService.create(requestBookingDto, 1L));
+        Mockito
+                .when(mokBookingRepository.saveAndFlush(Mockito.any(Booking.class)))
+                .thenThrow(new DataIntegrityViolationException("bookings_item_id_fkey",
+                        new SQLException("violates foreign key constraint", "23503")));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        assertThrows(DataIntegrityViolationException.class, () -> bookingService.create(requestBookingDto, 2L));
     }
 
     @Test
     void correctApproveBookingTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.updateWaitingStatus(1L, 1L, BookingStatus.APPROVED))
+                .thenReturn(1);
 
+        // Бронирование читается после обновления и уже содержит новый статус
+        bookingFromBd.setStatus(BookingStatus.APPROVED);
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
 
-        Mockito
-                .when(mokBookingRepository.save(Mockito.any(Booking.class)))
-                .thenReturn(bookingFromBd);
-
         responseBookingDto.setStatus(BookingStatus.APPROVED);
         assertEquals(responseBookingDto, bookingService.approveBooking(1L, 1L, true));
 
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findById(1L);
+                .updateWaitingStatus(1L, 1L, BookingStatus.APPROVED);
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
+        Mockito.verify(mokBookingRepository, Mockito.never())
                 .save(Mockito.any(Booking.class));
+
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemBookingsChangedEvent(1L));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new BookingChangedEvent(1L, new BookingInterval(1L, start, end), BookingStatus.APPROVED));
     }
 
     @Test
-    void approveBookingWhenUserNotExist() {
+    void approveBookingChangedConcurrentlyTest() {
+        // Обновление не изменило строку, хотя бронирование ожидает и вещь принадлежит пользователю:
+        // статус сменил параллельный запрос между обновлением и чтением
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokBookingRepository.findById(1L))
+                .thenReturn(Optional.of(bookingFromBd));
 
-        assertThrows(StorageException.class, () -> bookingService.approveBooking(1L, 1L, true));
+        assertThrows(ConflictException.class, () -> bookingService.approveBooking(1L, 1L, true));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        Mockito.verifyNoInteractions(mokEventPublisher);
     }
 
     @Test
-    void approveBookingWhenBookingNotExist() {
+    void approveBookingWhenUserNotExist() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.findById(1L))
+                .thenReturn(Optional.of(bookingFromBd));
 
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+        // Несуществующий пользователь не может быть владельцем вещи
+        assertThrows(StorageException.class, () -> bookingService.approveBooking(1L, 5L, true));
 
-        assertThrows(StorageException.class, () -> bookingService.approveBooking(1L, 1L, true));
+        Mockito.verifyNoInteractions(mokUserRepository);
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .updateWaitingStatus(1L, 5L, BookingStatus.APPROVED);
     }
 
     @Test
-    void aproveBookingWhenBookingNotExistInDB() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
+    void approveBookingWhenBookingNotExist() {
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.approveBooking(1L, 1L, true));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        Mockito.verifyNoInteractions(mokEventPublisher);
     }
 
     @Test
     void approveBookingWhenBookingStatusNotWaiting() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
@@ -312,68 +329,138 @@ class DbBookingServiceTest {
         bookingFromBd.setStatus(BookingStatus.CANCELED);
         assertThrows(ValidationException.class, () -> bookingService.approveBooking(1L, 1L, true));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        Mockito.verifyNoInteractions(mokEventPublisher);
     }
 
     @Test
     void approveBookingWhenNotOwner() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
 
         assertThrows(StorageException.class, () -> bookingService.approveBooking(1L, 3L, true));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .save(Mockito.any(Booking.class));
+        Mockito.verifyNoInteractions(mokEventPublisher);
     }
 
     @Test
     void rejectBookingTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.updateWaitingStatus(1L, 1L, BookingStatus.REJECTED))
+                .thenReturn(1);
 
+        bookingFromBd.setStatus(BookingStatus.REJECTED);
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
 
-        Mockito
-                .when(mokBookingRepository.save(Mockito.any(Booking.class)))
-                .thenReturn(bookingFromBd);
-
         responseBookingDto.setStatus(BookingStatus.REJECTED);
         assertEquals(responseBookingDto, bookingService.approveBooking(1L, 1L, false));
 
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findById(1L);
+                .updateWaitingStatus(1L, 1L, BookingStatus.REJECTED);
+
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemBookingsChangedEvent(1L));
+    }
+
+    @Test
+    void approveBookingsTest() {
+        Booking rejectedFromBd = new Booking(2L, start, end, item, booker, BookingStatus.WAITING);
+        Booking approvedFromBd = new Booking(4L, start, end, item, booker, BookingStatus.APPROVED);
+
+        // После обновления статусов бронирования читаются заново уже с решениями
+        Mockito
+                .when(mokBookingRepository.findAllByIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(bookingFromBd, rejectedFromBd, approvedFromBd))
+                .thenReturn(List.of(new Booking(1L, start, end, item, booker, BookingStatus.APPROVED),
+                        new Booking(2L, start, end, item, booker, BookingStatus.REJECTED)));
+
+        Mockito
+                .when(mokBookingRepository.updateWaitingStatuses(List.of(1L, 2L), 1L, List.of(1L),
+                        BookingStatus.APPROVED, BookingStatus.REJECTED))
+                .thenReturn(2);
+
+        assertEquals(List.of(
+                        new BookingDecisionResultDto(1L, BookingStatus.APPROVED, null),
+                        new BookingDecisionResultDto(2L, BookingStatus.REJECTED, null),
+                        new BookingDecisionResultDto(3L, null, "Бронирования не существует"),
+                        new BookingDecisionResultDto(4L, BookingStatus.APPROVED, "Изменение статуса не возможно")),
+                bookingService.approveBookings(List.of(
+                        new BookingDecisionDto(1L, true),
+                        new BookingDecisionDto(2L, false),
+                        new BookingDecisionDto(3L, true),
+                        new BookingDecisionDto(4L, false)), 1L));
 
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .save(Mockito.any(Booking.class));
+                .findAllByIdIn(Set.of(1L, 2L, 3L, 4L));
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findAllByIdIn(List.of(1L, 2L));
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findById(Mockito.anyLong());
+
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemBookingsChangedEvent(1L));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new BookingChangedEvent(1L, new BookingInterval(1L, start, end), BookingStatus.APPROVED));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new BookingChangedEvent(1L, new BookingInterval(2L, start, end), BookingStatus.REJECTED));
     }
 
     @Test
-    void correctGetBookingToBookerTest() {
+    void approveBookingsWhenNotOwnerTest() {
+        Booking approvedFromBd = new Booking(2L, start, end, item, booker, BookingStatus.APPROVED);
+
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.findAllByIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(bookingFromBd, approvedFromBd));
+
+        // Чужому пользователю статус бронирования не показывается, даже если оно уже не ожидает
+        assertEquals(List.of(
+                        new BookingDecisionResultDto(1L, null, "Подтвердить бронирование может только владелец вещи"),
+                        new BookingDecisionResultDto(2L, null, "Подтвердить бронирование может только владелец вещи")),
+                bookingService.approveBookings(List.of(
+                        new BookingDecisionDto(1L, true),
+                        new BookingDecisionDto(2L, false)), 3L));
+
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .updateWaitingStatuses(Mockito.anyCollection(), Mockito.anyLong(), Mockito.anyCollection(),
+                        Mockito.any(), Mockito.any());
+        Mockito.verifyNoInteractions(mokEventPublisher);
+    }
+
+    @Test
+    void approveBookingsChangedConcurrentlyTest() {
+        Booking secondFromBd = new Booking(2L, start, end, item, booker, BookingStatus.WAITING);
 
         Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.findAllByIdIn(Mockito.anyCollection()))
+                .thenReturn(List.of(bookingFromBd, secondFromBd));
 
+        // Одно из бронирований успел подтвердить параллельный запрос
+        Mockito
+                .when(mokBookingRepository.updateWaitingStatuses(List.of(1L, 2L), 1L, List.of(1L, 2L),
+                        BookingStatus.REJECTED, BookingStatus.APPROVED))
+                .thenReturn(1);
+
+        assertThrows(ConflictException.class, () -> bookingService.approveBookings(List.of(
+                new BookingDecisionDto(1L, false),
+                new BookingDecisionDto(2L, false)), 1L));
+
+        Mockito.verifyNoInteractions(mokEventPublisher);
+    }
+
+    @Test
+    void approveBookingsWithRepeatedIdTest() {
+        assertThrows(ValidationException.class, () -> bookingService.approveBookings(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(1L, false)), 1L));
+
+        Mockito.verifyNoInteractions(mokBookingRepository);
+    }
+
+    @Test
+    void correctGetBookingToBookerTest() {
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
@@ -386,14 +473,6 @@ class DbBookingServiceTest {
 
     @Test
     void correctGetBookingToOwnerTest() {
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokBookingRepository.findById(1L))
                 .thenReturn(Optional.of(bookingFromBd));
@@ -407,40 +486,33 @@ class DbBookingServiceTest {
     @Test
     void getBookingWhenBookingNotExist() {
         Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokBookingRepository.findById(1L))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.getBooking(1L, 2L));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .findById(Mockito.anyLong());
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findById(1L);
+        Mockito.verifyNoInteractions(mokUserRepository);
     }
 
     @Test
     void getBookingWhenBookerNotExist() {
         Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokBookingRepository.findById(1L))
+                .thenReturn(Optional.of(bookingFromBd));
 
-        assertThrows(StorageException.class, () -> bookingService.getBooking(1L, 2L));
+        // Несуществующий пользователь не может быть ни автором бронирования, ни владельцем вещи
+        assertThrows(StorageException.class, () -> bookingService.getBooking(1L, 5L));
 
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .findById(Mockito.anyLong());
+        Mockito.verifyNoInteractions(mokUserRepository);
     }
 
     @Test
     void getBookingWhenNotBookerOrOwnerExist() {
         Mockito
-                .when(mokBookingRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokBookingRepository.findById(1L))
+                .thenReturn(Optional.of(bookingFromBd));
 
         assertThrows(StorageException.class, () -> bookingService.getBooking(1L, 3L));
 
@@ -451,171 +523,162 @@ class DbBookingServiceTest {
     @Test
     void getAllUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_IdIs(2L, PageRequest
-                        .of(0, 10, Sort.by(Sort.Direction.DESC, "start"))))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.ALL, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_IdIs(2L, PageRequest.of(0, 10,
-                        Sort.by(Sort.Direction.DESC, "start")));
+        assertFilter(2L, false, State.ALL);
     }
 
     @Test
     void getPastUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_IdAndEndIsBefore(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.PAST, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_IdAndEndIsBefore(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(2L, false, State.PAST);
     }
 
     @Test
     void getCurrentUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_IdAndStartIsBeforeAndEndIsAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.CURRENT, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_IdAndStartIsBeforeAndEndIsAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(2L, false, State.CURRENT);
     }
 
     @Test
     void getFutureUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_idAndStartIsAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.FUTURE, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_idAndStartIsAfter(Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(2L, false, State.FUTURE);
     }
 
     @Test
     void getWaitingUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_IdAndStatusIs(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.WAITING, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_IdAndStatusIs(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(2L, false, State.WAITING);
     }
 
     @Test
     void getRejectedUserBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
-                .when(mokBookingRepository.findByBooker_IdAndStatusIs(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getUserBookings(State.REJECTED, 2L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findByBooker_IdAndStatusIs(Mockito.anyLong(),
-                        Mockito.any(BookingStatus.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(2L, false, State.REJECTED);
     }
 
     @Test
     void getUserBookingsWhenUserNotExsixt() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.getUserBookings(State.ALL, 2L, 0, 10));
     }
 
+    @Test
+    void getUserBookingsPageOffsetTest() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
+
+        Mockito
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(10), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto));
+
+        // Смещение считается по номеру страницы, как в PageRequest.of(from / size, size)
+        assertEquals(List.of(responseBookingDto), bookingService.getUserBookings(State.ALL, 2L, 15, 10));
+    }
+
     @Test
     void getAllOwnerBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findOwnerBookings(1L, PageRequest.of(0, 10)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.ALL, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findOwnerBookings(1L, PageRequest.of(0, 10));
+        assertFilter(1L, true, State.ALL);
     }
 
     @Test
     void getOwnerBookingsWhenOwnerNotExist() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> bookingService.getOwnerBookings(State.ALL, 1L, 0, 10));
     }
@@ -623,8 +686,8 @@ class DbBookingServiceTest {
     @Test
     void getOwnerBookingsWhenOwnerNotHaveItems() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -636,111 +699,89 @@ class DbBookingServiceTest {
     @Test
     void getPastOwnerBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findPastOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.PAST, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findPastOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(1L, true, State.PAST);
     }
 
     @Test
     void getCurrentOwnerBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findCurrentOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.CURRENT, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findCurrentOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(1L, true, State.CURRENT);
     }
 
     @Test
     void getFutureOwnerBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findFutureOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.FUTURE, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findFutureOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(LocalDateTime.class),
-                        Mockito.any(Pageable.class));
+        assertFilter(1L, true, State.FUTURE);
     }
 
     @Test
     void getWaitingOwnerBookingsTest() {
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.WAITING, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(Pageable.class));
+        assertFilter(1L, true, State.WAITING);
     }
 
     @Test
@@ -749,28 +790,95 @@ class DbBookingServiceTest {
         bookingFromBd.setStatus(BookingStatus.REJECTED);
 
         Mockito
-                .when(mokUserRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(mokItemRepository.findAllByOwner_IdOrderById(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(mokBookingRepository.findOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(Pageable.class)))
-                .thenReturn(List.of(bookingFromBd, bookingFromBd, bookingFromBd));
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto, responseBookingDto, responseBookingDto));
 
         List<ResponseBookingDto> response = List.of(responseBookingDto, responseBookingDto, responseBookingDto);
 
         assertEquals(response, bookingService.getOwnerBookings(State.REJECTED, 1L, 0, 10));
 
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findOwnerBookings(
-                        Mockito.anyLong(),
-                        Mockito.any(Pageable.class));
+        assertFilter(1L, true, State.REJECTED);
 
         bookingFromBd.setStatus(BookingStatus.WAITING);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUserBookingsAfterTest() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
+
+        Mockito
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto));
+
+        assertEquals(List.of(responseBookingDto), bookingService.getUserBookingsAfter(
+                State.WAITING, 2L, start, 5L, 10));
+
+        ArgumentCaptor<BookingFilter> filter = ArgumentCaptor.forClass(BookingFilter.class);
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findResponsesByFilter(filter.capture(), Mockito.eq(0), Mockito.eq(10));
+        assertEquals(2L, filter.getValue().getUserId());
+        assertFalse(filter.getValue().isOwner());
+        assertEquals(State.WAITING, filter.getValue().getState());
+        assertEquals(start, filter.getValue().getAfterStart());
+        assertEquals(5L, filter.getValue().getAfterId());
+    }
+
+    @Test
+    void getOwnerBookingsAfterTest() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(user));
+
+        Mockito
+                .when(mokBookingRepository.findResponsesByFilter(
+                        Mockito.any(BookingFilter.class), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(List.of(responseBookingDto));
+
+        assertEquals(List.of(responseBookingDto), bookingService.getOwnerBookingsAfter(
+                State.ALL, 1L, start, 5L, 10));
+
+        ArgumentCaptor<BookingFilter> filter = ArgumentCaptor.forClass(BookingFilter.class);
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findResponsesByFilter(filter.capture(), Mockito.eq(0), Mockito.eq(10));
+        assertEquals(1L, filter.getValue().getUserId());
+        assertTrue(filter.getValue().isOwner());
+    }
+
+    @Test
+    void getBookingsAfterWhenUserNotExist() {
+        Mockito
+                .when(mokUserRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.empty());
+
+        assertThrows(StorageException.class, () -> bookingService.getUserBookingsAfter(
+                State.ALL, 2L, start, 5L, 10));
+        assertThrows(StorageException.class, () -> bookingService.getOwnerBookingsAfter(
+                State.ALL, 1L, start, 5L, 10));
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findResponsesByFilter(Mockito.any(BookingFilter.class), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    // Один запрос к репозиторию с фильтром по пользователю, роли и состоянию на один момент времени
+    private void assertFilter(long userId, boolean owner, State state) {
+        ArgumentCaptor<BookingFilter> filter = ArgumentCaptor.forClass(BookingFilter.class);
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findResponsesByFilter(filter.capture(), Mockito.eq(0), Mockito.eq(10));
+        assertEquals(userId, filter.getValue().getUserId());
+        assertEquals(owner, filter.getValue().isOwner());
+        assertEquals(state, filter.getValue().getState());
+        assertNotNull(filter.getValue().getNow());
+        assertNull(filter.getValue().getAfterStart());
+    }
+}
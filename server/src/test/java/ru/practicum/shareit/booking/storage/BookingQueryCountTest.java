@@ -0,0 +1,161 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.QueryCounter;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.mapper.DefaultBookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.item.mapper.ItemMapperDefault;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.mapper.UserMapperDefault;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Число запросов на чтение бронирований: связи загружаются вместе с бронированиями, а не отдельной выборкой на строку
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class BookingQueryCountTest {
+    private static final int PAGE_SIZE = 100;
+
+    private final BookingMapper bookingMapper = new DefaultBookingMapper(
+            new UserMapperDefault(),
+            new ItemMapperDefault());
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+    private LocalDateTime now;
+    private User owner;
+    private User frequentBooker;
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        now = LocalDateTime.now();
+        owner = new User(null, "Vitya", "vitya@mail.ru");
+        frequentBooker = new User(null, "Booker", "booker@mail.ru");
+        em.persist(owner);
+        em.persist(frequentBooker);
+
+        // У каждой вещи свой автор бронирования, поэтому без загрузки связей в запросе выборок было бы по строке
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            User booker = new User(null, "Booker" + i, "booker" + i + "@mail.ru");
+            Item item = new Item(null, "Вещь" + i, "Супер", true, owner, null);
+            Booking booking = new Booking(
+                    null, now.minusDays(i + 2), now.minusDays(i + 1), item, booker, BookingStatus.APPROVED);
+            em.persist(booker);
+            em.persist(item);
+            em.persist(booking);
+            em.persist(new Booking(
+                    null, now.plusDays(i + 1), now.plusDays(i + 2), item, frequentBooker, BookingStatus.WAITING));
+            em.persist(ItemBookingSummary.of(item.getId(), booking, booking));
+            items.add(item);
+            bookings.add(booking);
+        }
+
+        em.flush();
+        em.clear();
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @Test
+    void ownerAndBookerPagesLoadInOneQueryTest() {
+        for (BookingFilter filter : List.of(filter(owner.getId(), true), filter(frequentBooker.getId(), false))) {
+            List<ResponseBookingDto> page = queryCounter.assertMaxQueries(1,
+                    () -> bookingRepository.findResponsesByFilter(filter, 0, PAGE_SIZE));
+
+            assertEquals(PAGE_SIZE, page.size());
+        }
+    }
+
+    @Test
+    void bookingByIdLoadsInOneQueryTest() {
+        Booking booking = queryCounter.assertMaxQueries(1,
+                () -> bookingRepository.findById(bookings.get(0).getId()).orElseThrow());
+
+        queryCounter.assertNoQueries(() -> bookingMapper.toResponseBooking(booking));
+        assertEquals(owner.getName(), booking.getItem().getOwner().getName());
+
+        em.clear();
+        Booking lastBooking = queryCounter.assertMaxQueries(1,
+                () -> bookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(
+                        frequentBooker.getId(), items.get(0).getId()).orElseThrow());
+
+        queryCounter.assertNoQueries(() -> bookingMapper.toResponseBooking(lastBooking));
+    }
+
+    @Test
+    void lastAndNextBookingsForItemsLoadInOneQueryTest() {
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        List<Booking> lastBookings = queryCounter.assertMaxQueries(1,
+                () -> bookingRepository.findLastBookingsForItems(itemIds));
+        assertEquals(PAGE_SIZE, lastBookings.size());
+        queryCounter.assertNoQueries(() -> lastBookings.forEach(bookingMapper::toResponseBooking));
+        // Вещь и ее владелец приходят тем же запросом, а не отдельной выборкой на бронирование
+        queryCounter.assertNoQueries(() -> lastBookings.forEach(booking -> booking.getItem().getOwner().getName()));
+
+        em.clear();
+        List<Booking> nextBookings = queryCounter.assertMaxQueries(1,
+                () -> bookingRepository.findNextBookingsForItems(itemIds));
+        assertEquals(PAGE_SIZE, nextBookings.size());
+        queryCounter.assertNoQueries(() -> nextBookings.forEach(bookingMapper::toResponseBooking));
+        queryCounter.assertNoQueries(() -> nextBookings.forEach(booking -> booking.getItem().getOwner().getName()));
+    }
+
+    @Test
+    void summariesLoadInOneQueryTest() {
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        List<ItemBookingSummary> summaries = queryCounter.assertMaxQueries(1,
+                () -> summaryRepository.findAllByItemIds(itemIds));
+
+        assertEquals(PAGE_SIZE, summaries.size());
+        queryCounter.assertNoQueries(() -> summaries.forEach(summary -> {
+            bookingMapper.toItemBooking(summary.getLastBooking());
+            bookingMapper.toResponseBooking(summary.getNextBooking());
+        }));
+        assertTrue(summaries.stream()
+                .allMatch(summary -> summary.getLastBooking().getItem().getOwner().getId().equals(owner.getId())));
+    }
+
+    private BookingFilter filter(long userId, boolean isOwner) {
+        return BookingFilter.builder()
+                .userId(userId)
+                .owner(isOwner)
+                .state(State.ALL)
+                .now(now)
+                .build();
+    }
+}
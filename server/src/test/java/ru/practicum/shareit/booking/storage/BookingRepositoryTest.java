@@ -1,30 +1,38 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.status.State;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 class BookingRepositoryTest {
-    private final Sort sort = Sort.by(Sort.Direction.DESC, "start");
     private LocalDateTime now;
     private User user;
     private User booker;
@@ -40,7 +48,7 @@ class BookingRepositoryTest {
 
     @BeforeEach
     void beforeEach() {
-        now = LocalDateTime.now();
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         user = new User(null, "Vitya", "vitya@mail.ru");
         booker = new User(null, "Booker", "booker@mail.ru");
         item = new Item(null, "Вещь", "Супер", true, user, null);
@@ -52,69 +60,18 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findByBookerIdTest() {
+    void findBookerBookingsByFilterTest() {
         em.persist(bookingFuture);
         em.persist(bookingPast);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findByBooker_IdIs(1, PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        List<Booking> bookingsFromDb = bookingRepository.findByBooker_IdIs(2, PageRequest.of(0, 10, sort));
-        assertEquals(2, bookingsFromDb.size());
-        assertEquals(bookingFuture, bookingsFromDb.get(0));
-        assertEquals(bookingPast, bookingsFromDb.get(1));
-    }
-
-    @Test
-    void findByBooker_IdAndEndIsBeforeTest() {
-        em.persist(bookingFuture);
-        em.persist(bookingPast);
-
-        List<Booking> bookingsFromDb5Id = bookingRepository.findByBooker_IdAndEndIsBefore(
-                1,
-                now,
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        List<Booking> bookingsFromDb = bookingRepository.findByBooker_IdAndEndIsBefore(
-                2,
-                now,
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingPast, bookingsFromDb.get(0));
-    }
-
-    @Test
-    void findByBooker_IdAndStartIsBeforeAndEndIsAfterTest() {
-        Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
-        Booking bookingCurrent2 = new Booking(null, now.plusMinutes(10), now.plusDays(1), item, booker, BookingStatus.WAITING);
-
-        em.persist(bookingFuture);
-        em.persist(bookingPast);
-        em.persist(bookingCurrent1);
-        em.persist(bookingCurrent2);
-
-        List<Booking> bookingsFromDb5Id = bookingRepository.findByBooker_IdAndStartIsBeforeAndEndIsAfter(
-                1,
-                now.plusHours(1),
-                now.plusHours(1),
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        List<Booking> bookingsFromDb = bookingRepository.findByBooker_IdAndStartIsBeforeAndEndIsAfter(
-                2,
-                now.plusHours(1),
-                now.plusHours(1),
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(2, bookingsFromDb.size());
-        assertEquals(bookingCurrent2, bookingsFromDb.get(0));
-        assertEquals(bookingCurrent1, bookingsFromDb.get(1));
+        assertTrue(findPage(1, false, State.ALL, now).isEmpty());
+        assertEquals(responses(bookingFuture, bookingPast), findPage(2, false, State.ALL, now));
+        assertEquals(responses(bookingPast), findPage(2, false, State.PAST, now));
+        assertTrue(findPage(1, false, State.PAST, now).isEmpty());
     }
 
     @Test
-    void findByBooker_idAndStartIsAfterTest() {
+    void findCurrentAndFutureBookerBookingsByFilterTest() {
         Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
         Booking bookingCurrent2 = new Booking(
                 null, now.plusMinutes(10), now.plusDays(1), item, booker, BookingStatus.WAITING);
@@ -124,23 +81,18 @@ class BookingRepositoryTest {
         em.persist(bookingCurrent1);
         em.persist(bookingCurrent2);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findByBooker_idAndStartIsAfter(
-                1,
-                now.plusHours(1),
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        List<Booking> bookingsFromDb = bookingRepository.findByBooker_idAndStartIsAfter(
-                2,
-                now.plusHours(1),
-                PageRequest.of(0, 10, sort));
+        assertTrue(findPage(1, false, State.CURRENT, now.plusHours(1)).isEmpty());
+        assertEquals(responses(bookingCurrent2, bookingCurrent1),
+                findPage(2, false, State.CURRENT, now.plusHours(1)));
+        // Для пользователя граница текущего бронирования не включается
+        assertTrue(findPage(2, false, State.CURRENT, now).isEmpty());
 
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingFuture, bookingsFromDb.get(0));
+        assertTrue(findPage(1, false, State.FUTURE, now.plusHours(1)).isEmpty());
+        assertEquals(responses(bookingFuture), findPage(2, false, State.FUTURE, now.plusHours(1)));
     }
 
     @Test
-    void findByBooker_IdAndStatusIsTest() {
+    void findBookerBookingsWithStatusByFilterTest() {
         Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
         Booking bookingCurrent2 = new Booking(
                 null, now.plusMinutes(10), now.plusDays(1), item, booker, BookingStatus.WAITING);
@@ -151,72 +103,21 @@ class BookingRepositoryTest {
         em.persist(bookingCurrent1);
         em.persist(bookingCurrent2);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findByBooker_IdAndStatusIs(
-                1,
-                BookingStatus.CANCELED,
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        List<Booking> bookingsFromDb = bookingRepository.findByBooker_IdAndStatusIs(
-                2,
-                BookingStatus.CANCELED,
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingPast, bookingsFromDb.get(0));
-
-        bookingsFromDb5Id = bookingRepository.findByBooker_IdAndStatusIs(
-                1,
-                BookingStatus.WAITING,
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        bookingsFromDb = bookingRepository.findByBooker_IdAndStatusIs(
-                2,
-                BookingStatus.WAITING,
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingCurrent2, bookingsFromDb.get(0));
-
-        bookingsFromDb5Id = bookingRepository.findByBooker_IdAndStatusIs(
-                1,
-                BookingStatus.REJECTED,
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        bookingsFromDb = bookingRepository.findByBooker_IdAndStatusIs(
-                2,
-                BookingStatus.REJECTED,
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingCurrent1, bookingsFromDb.get(0));
-
-        bookingsFromDb5Id = bookingRepository.findByBooker_IdAndStatusIs(
-                1,
-                BookingStatus.APPROVED,
-                PageRequest.of(0, 10, sort));
-        assertTrue(bookingsFromDb5Id.isEmpty());
-
-        bookingsFromDb = bookingRepository.findByBooker_IdAndStatusIs(
-                2,
-                BookingStatus.APPROVED,
-                PageRequest.of(0, 10, sort));
-
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingFuture, bookingsFromDb.get(0));
+        assertTrue(findPage(1, false, State.WAITING, now).isEmpty());
+        assertEquals(responses(bookingCurrent2), findPage(2, false, State.WAITING, now));
+        assertTrue(findPage(1, false, State.REJECTED, now).isEmpty());
+        assertEquals(responses(bookingCurrent1), findPage(2, false, State.REJECTED, now));
     }
 
     @Test
-    void findLastBooker_IdAndItem_IdTest() {
+    void findFirstByBooker_IdAndItem_IdOrderByEndAscTest() {
         Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
 
         em.persist(bookingFuture);
         em.persist(bookingPast);
         em.persist(bookingCurrent1);
 
-        Optional<Booking> optionalBookingFromDb = bookingRepository.findLastBooker_IdAndItem_Id(2, 1);
+        Optional<Booking> optionalBookingFromDb = bookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(2, 1);
         assertThat(optionalBookingFromDb).isPresent();
 
         Booking bookingFromDb = optionalBookingFromDb.orElseThrow();
@@ -224,122 +125,283 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findOwnerBookingsTest() {
+    void findOwnerBookingsByFilterTest() {
         Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
 
         em.persist(bookingFuture);
         em.persist(bookingPast);
         em.persist(bookingCurrent1);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findOwnerBookings(
-                2,
-                PageRequest.of(0, 10));
-        assertTrue(bookingsFromDb5Id.isEmpty());
+        assertTrue(findPage(2, true, State.ALL, now).isEmpty());
+        assertEquals(responses(bookingFuture, bookingCurrent1, bookingPast), findPage(1, true, State.ALL, now));
+        assertEquals(responses(bookingPast), findPage(1, true, State.PAST, now));
+        // Для владельца граница текущего бронирования включается
+        assertEquals(responses(bookingCurrent1), findPage(1, true, State.CURRENT, now));
+        assertEquals(responses(bookingFuture), findPage(1, true, State.FUTURE, now));
+        assertTrue(findPage(2, true, State.PAST, now).isEmpty());
+        assertTrue(findPage(2, true, State.CURRENT, now).isEmpty());
+        assertTrue(findPage(2, true, State.FUTURE, now).isEmpty());
+    }
+
+    @Test
+    void findOwnerBookingsWithStatusByFilterTest() {
+        Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
+        Booking bookingFuture2 = new Booking(null, now.plusDays(5), now.plusDays(6), item, booker, BookingStatus.WAITING);
 
-        List<Booking> bookingsFromDb = bookingRepository.findOwnerBookings(
-                1,
-                PageRequest.of(0, 10));
+        em.persist(bookingFuture);
+        em.persist(bookingPast);
+        em.persist(bookingCurrent1);
+        em.persist(bookingFuture2);
 
-        assertEquals(3, bookingsFromDb.size());
-        assertEquals(bookingFuture, bookingsFromDb.get(0));
-        assertEquals(bookingCurrent1, bookingsFromDb.get(1));
-        assertEquals(bookingPast, bookingsFromDb.get(2));
+        assertTrue(findPage(2, true, State.WAITING, now).isEmpty());
+        assertEquals(responses(bookingFuture2, bookingFuture), findPage(1, true, State.WAITING, now));
+        assertEquals(responses(bookingCurrent1), findPage(1, true, State.REJECTED, now));
     }
 
     @Test
-    void findPastOwnerBookingsTest() {
+    void findResponsesByFilterWithOffsetTest() {
         Booking bookingCurrent1 = new Booking(null, now, now.plusDays(1), item, booker, BookingStatus.REJECTED);
 
         em.persist(bookingFuture);
         em.persist(bookingPast);
         em.persist(bookingCurrent1);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findPastOwnerBookings(
-                2,
-                now,
-                PageRequest.of(0, 10));
-        assertTrue(bookingsFromDb5Id.isEmpty());
+        BookingFilter filter = BookingFilter.builder()
+                .userId(user.getId())
+                .owner(true)
+                .state(State.ALL)
+                .now(now)
+                .build();
+
+        assertEquals(responses(bookingFuture, bookingCurrent1),
+                bookingRepository.findResponsesByFilter(filter, 0, 2));
+        assertEquals(responses(bookingPast), bookingRepository.findResponsesByFilter(filter, 2, 2));
+        assertTrue(bookingRepository.findResponsesByFilter(filter, 4, 2).isEmpty());
+    }
+
+    @Test
+    void findLastAndNextBookingsForItemsTest() {
+        Item item2 = new Item(null, "Вещь2", "Супер2", true, user, null);
+        Item item3 = new Item(null, "Вещь3", "Супер3", true, user, null);
+        em.persist(item2);
+        em.persist(item3);
 
-        List<Booking> bookingsFromDb = bookingRepository.findPastOwnerBookings(
-                1,
-                now,
-                PageRequest.of(0, 10));
+        Booking bookingItem2 = new Booking(
+                null, now.minusDays(1), now.plusDays(1), item2, booker, BookingStatus.APPROVED);
 
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingPast, bookingsFromDb.get(0));
+        em.persist(bookingFuture);
+        em.persist(bookingPast);
+        em.persist(bookingItem2);
+
+        List<Booking> lastBookings = bookingRepository.findLastBookingsForItems(
+                List.of(item.getId(), item2.getId(), item3.getId()));
+        assertEquals(2, lastBookings.size());
+        assertTrue(lastBookings.contains(bookingPast));
+        assertTrue(lastBookings.contains(bookingItem2));
+
+        List<Booking> nextBookings = bookingRepository.findNextBookingsForItems(
+                List.of(item.getId(), item2.getId(), item3.getId()));
+        assertEquals(2, nextBookings.size());
+        assertTrue(nextBookings.contains(bookingFuture));
+        assertTrue(nextBookings.contains(bookingItem2));
+
+        assertTrue(bookingRepository.findLastBookingsForItems(List.of(item3.getId())).isEmpty());
+        assertTrue(bookingRepository.findNextBookingsForItems(List.of(item3.getId())).isEmpty());
     }
 
     @Test
-    void findCurrentOwnerBookingsTest() {
-        Booking bookingCurrent1 = new Booking(
-                null, now.minusMinutes(10), now.plusDays(1), item, booker, BookingStatus.REJECTED);
-
+    void existsOverlappingBookingTest() {
         em.persist(bookingFuture);
         em.persist(bookingPast);
-        em.persist(bookingCurrent1);
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findCurrentOwnerBookings(
-                2,
-                now,
-                PageRequest.of(0, 10));
-        assertTrue(bookingsFromDb5Id.isEmpty());
+        // Полуоткрытые интервалы: бронь, начинающаяся в момент окончания другой, не пересекается с ней
+        assertTrue(existsOverlapping(now.plusDays(2), now.plusDays(4)));
+        assertTrue(existsOverlapping(now, now.plusDays(5)));
+        assertFalse(existsOverlapping(now.plusDays(3), now.plusDays(4)));
+        assertFalse(existsOverlapping(now, now.plusDays(1)));
+        // Отмененная прошлая бронь даты не занимает
+        assertFalse(existsOverlapping(now.minusDays(3), now.minusDays(2)));
 
-        List<Booking> bookingsFromDb = bookingRepository.findCurrentOwnerBookings(
-                1,
-                now,
-                PageRequest.of(0, 10));
+        bookingFuture.setStatus(BookingStatus.REJECTED);
+        em.flush();
 
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingCurrent1, bookingsFromDb.get(0));
+        assertFalse(existsOverlapping(now.plusDays(2), now.plusDays(4)));
     }
 
     @Test
-    void findFutureOwnerBookingsTest() {
-        Booking bookingCurrent1 = new Booking(
-                null, now.minusMinutes(10), now.plusDays(1), item, booker, BookingStatus.REJECTED);
+    void updateWaitingStatusTest() {
+        em.persist(bookingFuture);
+        em.flush();
+        em.clear();
+        // Бронирование уже в контексте, как после чтения в том же запросе
+        em.find(Booking.class, bookingFuture.getId());
+
+        // Чужая вещь: строка не меняется
+        assertEquals(0, bookingRepository.updateWaitingStatus(bookingFuture.getId(), booker.getId(),
+                BookingStatus.APPROVED));
+        assertEquals(1, bookingRepository.updateWaitingStatus(bookingFuture.getId(), user.getId(),
+                BookingStatus.APPROVED));
+        // Повторное подтверждение уже не находит ожидающего бронирования
+        assertEquals(0, bookingRepository.updateWaitingStatus(bookingFuture.getId(), user.getId(),
+                BookingStatus.REJECTED));
+        assertEquals(0, bookingRepository.updateWaitingStatus(-1L, user.getId(), BookingStatus.APPROVED));
+
+        Booking updated = bookingRepository.findById(bookingFuture.getId()).orElseThrow();
+        assertEquals(BookingStatus.APPROVED, updated.getStatus());
+        assertEquals(1L, updated.getVersion());
+    }
 
+    @Test
+    void updateWaitingStatusesTest() {
+        Booking bookingSecond = new Booking(null, now.plusDays(4), now.plusDays(5), item, booker,
+                BookingStatus.WAITING);
+        bookingPast.setStatus(BookingStatus.APPROVED);
         em.persist(bookingFuture);
+        em.persist(bookingSecond);
         em.persist(bookingPast);
-        em.persist(bookingCurrent1);
+        em.flush();
+        em.clear();
+        em.find(Booking.class, bookingFuture.getId());
+
+        // Уже подтвержденное бронирование не меняется, остальные получают статус по своему решению
+        assertEquals(2, bookingRepository.updateWaitingStatuses(
+                List.of(bookingFuture.getId(), bookingSecond.getId(), bookingPast.getId()), user.getId(),
+                List.of(bookingSecond.getId()), BookingStatus.REJECTED, BookingStatus.APPROVED));
+        assertEquals(0, bookingRepository.updateWaitingStatuses(List.of(bookingFuture.getId()), user.getId(),
+                List.of(bookingFuture.getId()), BookingStatus.REJECTED, BookingStatus.APPROVED));
+
+        // Прочитанное до обновления бронирование не остается в контексте со статусом WAITING
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findAllByIdIn(List.of(bookingFuture.getId()))
+                .get(0).getStatus());
+        assertEquals(BookingStatus.REJECTED, em.find(Booking.class, bookingSecond.getId()).getStatus());
+        assertEquals(1L, em.find(Booking.class, bookingSecond.getId()).getVersion());
+        assertEquals(0L, em.find(Booking.class, bookingPast.getId()).getVersion());
+    }
 
-        List<Booking> bookingsFromDb5Id = bookingRepository.findFutureOwnerBookings(
-                2,
-                now,
-                PageRequest.of(0, 10));
-        assertTrue(bookingsFromDb5Id.isEmpty());
+    @Test
+    void saveStaleBookingTest() {
+        em.persist(bookingFuture);
+        em.flush();
+        em.detach(bookingFuture);
 
-        List<Booking> bookingsFromDb = bookingRepository.findFutureOwnerBookings(
-                1,
-                now,
-                PageRequest.of(0, 10));
+        bookingRepository.updateWaitingStatus(bookingFuture.getId(), user.getId(), BookingStatus.APPROVED);
+        em.clear();
 
-        assertEquals(1, bookingsFromDb.size());
-        assertEquals(bookingFuture, bookingsFromDb.get(0));
+        // Бронирование прочитано до обновления статуса: его сохранение отклоняется по версии
+        bookingFuture.setStatus(BookingStatus.REJECTED);
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> bookingRepository.saveAndFlush(bookingFuture));
     }
 
     @Test
-    void getLastBookingForItemTest() {
-        Booking bookingCurrent1 = new Booking(
-                null, now.minusMinutes(10), now.plusDays(1), item, booker, BookingStatus.REJECTED);
+    void findResponsesByFilterAfterKeyTest() {
+        Booking bookingCurrent1 = new Booking(null, now.minusDays(1), now.plusDays(1), item, booker, BookingStatus.WAITING);
+        Booking bookingCurrent2 = new Booking(null, now.minusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED);
 
         em.persist(bookingFuture);
         em.persist(bookingPast);
         em.persist(bookingCurrent1);
+        em.persist(bookingCurrent2);
 
-        Booking booking = bookingRepository.getLastBookingForItem(1);
-        assertEquals(bookingPast, booking);
+        BookingFilter.BookingFilterBuilder filter = BookingFilter.builder()
+                .userId(booker.getId())
+                .owner(false)
+                .state(State.ALL)
+                .now(now);
+
+        assertEquals(responses(bookingFuture, bookingCurrent2),
+                bookingRepository.findResponsesByFilter(filter.build(), 0, 2));
+        assertEquals(responses(bookingCurrent1, bookingPast),
+                bookingRepository.findResponsesByFilter(filter
+                        .afterStart(bookingCurrent2.getStart())
+                        .afterId(bookingCurrent2.getId())
+                        .build(), 0, 2));
+
+        BookingFilter ownerWaiting = BookingFilter.builder()
+                .userId(user.getId())
+                .owner(true)
+                .state(State.WAITING)
+                .now(now)
+                .build();
+
+        assertEquals(responses(bookingFuture, bookingCurrent1),
+                bookingRepository.findResponsesByFilter(ownerWaiting, 0, 10));
+
+        BookingFilter ownerCurrent = BookingFilter.builder()
+                .userId(user.getId())
+                .owner(true)
+                .state(State.CURRENT)
+                .now(now)
+                .afterStart(bookingCurrent2.getStart())
+                .afterId(bookingCurrent2.getId())
+                .build();
+
+        assertEquals(responses(bookingCurrent1), bookingRepository.findResponsesByFilter(ownerCurrent, 0, 10));
+
+        BookingFilter bookerAsOwner = BookingFilter.builder()
+                .userId(booker.getId())
+                .owner(true)
+                .state(State.ALL)
+                .now(now)
+                .build();
+
+        assertTrue(bookingRepository.findResponsesByFilter(bookerAsOwner, 0, 10).isEmpty());
     }
 
     @Test
-    void getNextBookingForItemTest() {
-        Booking bookingCurrent1 = new Booking(
-                null, now.minusMinutes(10), now.plusDays(1), item, booker, BookingStatus.REJECTED);
-
+    void findResponsesByFilterTest() {
         em.persist(bookingFuture);
         em.persist(bookingPast);
-        em.persist(bookingCurrent1);
+        em.flush();
+        em.clear();
+
+        BookingFilter.BookingFilterBuilder filter = BookingFilter.builder()
+                .state(State.ALL)
+                .now(now);
+        List<ResponseBookingDto> expected = List.of(response(bookingFuture), response(bookingPast));
+
+        assertEquals(expected, bookingRepository.findResponsesByFilter(
+                filter.userId(user.getId()).owner(true).build(), 0, 10));
+        assertEquals(expected, bookingRepository.findResponsesByFilter(
+                filter.userId(booker.getId()).owner(false).build(), 0, 10));
+        assertEquals(List.of(response(bookingPast)), bookingRepository.findResponsesByFilter(
+                filter.afterStart(bookingFuture.getStart()).afterId(bookingFuture.getId()).build(), 0, 10));
+        assertTrue(bookingRepository.findResponsesByFilter(
+                filter.userId(user.getId()).owner(false).build(), 0, 10).isEmpty());
+
+        // Ответ собирается из столбцов, в контекст персистентности ничего не попадает
+        assertEquals(0, em.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    private List<ResponseBookingDto> responses(Booking... bookings) {
+        return Arrays.stream(bookings)
+                .map(this::response)
+                .collect(Collectors.toList());
+    }
+
+    private ResponseBookingDto response(Booking booking) {
+        return new ResponseBookingDto(booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null),
+                new UserDto(booker.getId(), booker.getName(), booker.getEmail()),
+                booking.getStatus());
+    }
+
+    private boolean existsOverlapping(LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.existsByItem_IdAndStatusInAndStartBeforeAndEndAfter(item.getId(),
+                BookingStatus.OCCUPYING, end, start);
+    }
+
+    // Первая страница бронирований пользователя или владельца на момент now
+    private List<ResponseBookingDto> findPage(long userId, boolean owner, State state, LocalDateTime now) {
+        BookingFilter filter = BookingFilter.builder()
+                .userId(userId)
+                .owner(owner)
+                .state(state)
+                .now(now)
+                .build();
 
-        Booking booking = bookingRepository.getNextBookingForItem(1);
-        assertEquals(bookingFuture, booking);
+        return bookingRepository.findResponsesByFilter(filter, 0, 10);
     }
-}
\ No newline at end of file
+}
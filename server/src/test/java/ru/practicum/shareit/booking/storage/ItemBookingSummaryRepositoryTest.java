@@ -0,0 +1,132 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ItemBookingSummaryRepositoryTest {
+    private LocalDateTime now;
+    private User booker;
+    private Item item;
+    private Item item2;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        // Наносекунды не помещаются в столбец TIMESTAMP и отбрасываются при сохранении бронирования
+        now = LocalDateTime.now().withNano(123_456_789);
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        booker = new User(null, "Booker", "booker@mail.ru");
+        item = new Item(null, "Вещь", "Супер", true, user, null);
+        item2 = new Item(null, "Вещь2", "Супер2", true, user, null);
+        em.persist(user);
+        em.persist(booker);
+        em.persist(item);
+        em.persist(item2);
+        em.persist(ItemBookingSummary.of(item.getId(), null, null));
+        em.persist(ItemBookingSummary.of(item2.getId(), null, null));
+    }
+
+    @Test
+    void updateLastAndNextBookingTest() {
+        Booking bookingFuture = new Booking(
+                null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+        Booking bookingPast = new Booking(
+                null, now.minusDays(3), now.minusDays(2), item, booker, BookingStatus.CANCELED);
+        Booking bookingCurrent = new Booking(
+                null, now.minusMinutes(10), now.plusDays(1), item, booker, BookingStatus.REJECTED);
+
+        for (Booking booking : List.of(bookingFuture, bookingPast, bookingCurrent)) {
+            em.persist(booking);
+            summaryRepository.updateLastBooking(item.getId(), booking);
+            summaryRepository.updateNextBooking(item.getId(), booking);
+        }
+        em.clear();
+
+        List<ItemBookingSummary> summaries = summaryRepository.findAllByItemIds(List.of(item.getId(), item2.getId()));
+        assertEquals(2, summaries.size());
+
+        ItemBookingSummary summary = summaries.stream()
+                .filter(s -> s.getItemId().equals(item.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(bookingPast.getId(), summary.getLastBooking().getId());
+        assertEquals(bookingPast.getEnd(), summary.getLastEnd());
+        assertEquals(bookingFuture.getId(), summary.getNextBooking().getId());
+        assertEquals(bookingFuture.getStart(), summary.getNextStart());
+
+        ItemBookingSummary emptySummary = summaries.stream()
+                .filter(s -> s.getItemId().equals(item2.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertNull(emptySummary.getLastBooking());
+        assertNull(emptySummary.getNextBooking());
+    }
+
+    @Test
+    void keepEarlierBookingWhenDatesEqualTest() {
+        Booking booking1 = new Booking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+        Booking booking2 = new Booking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+
+        for (Booking booking : List.of(booking1, booking2)) {
+            em.persist(booking);
+            summaryRepository.updateLastBooking(item.getId(), booking);
+            summaryRepository.updateNextBooking(item.getId(), booking);
+        }
+        em.clear();
+
+        ItemBookingSummary summary = summaryRepository.findAllByItemIds(List.of(item.getId())).get(0);
+        assertEquals(booking1.getId(), summary.getLastBooking().getId());
+        assertEquals(booking1.getId(), summary.getNextBooking().getId());
+    }
+
+    @Test
+    void replaceByEarlierBookingWhenDatesEqualTest() {
+        Booking booking1 = new Booking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+        Booking booking2 = new Booking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+        em.persist(booking1);
+        em.persist(booking2);
+
+        // Обновления пришли не в порядке id - в сводке остается бронирование с меньшим id
+        for (Booking booking : List.of(booking2, booking1)) {
+            summaryRepository.updateLastBooking(item.getId(), booking);
+            summaryRepository.updateNextBooking(item.getId(), booking);
+        }
+        em.clear();
+
+        ItemBookingSummary summary = summaryRepository.findAllByItemIds(List.of(item.getId())).get(0);
+        assertEquals(booking1.getId(), summary.getLastBooking().getId());
+        assertEquals(booking1.getId(), summary.getNextBooking().getId());
+    }
+
+    @Test
+    void updateWhenSummaryNotExistTest() {
+        Booking booking = new Booking(null, now.plusDays(1), now.plusDays(3), item, booker, BookingStatus.WAITING);
+        em.persist(booking);
+
+        assertEquals(0, summaryRepository.updateLastBooking(Long.MAX_VALUE, booking));
+        assertTrue(summaryRepository.findAllByItemIds(List.of(Long.MAX_VALUE)).isEmpty());
+    }
+}
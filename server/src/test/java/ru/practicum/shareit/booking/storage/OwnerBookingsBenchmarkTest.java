@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.booking.status.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Сравнение старой выборки бронирований владельца по статусу (фильтр в Java после загрузки страницы)
+// с фильтром по статусу в запросе на владельце с десятками тысяч бронирований, из которых ожидает только каждое сотое
+@Slf4j
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class OwnerBookingsBenchmarkTest {
+    private static final int ITEMS = 50;
+    private static final int BOOKINGS = 20000;
+    private static final int WAITING_EVERY = 100;
+    private static final int PAGE_SIZE = 20;
+
+    private long ownerId;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.execute("INSERT INTO users (name, email) VALUES ('Vitya', 'vitya@mail.ru'), " +
+                "('Booker', 'booker@mail.ru')");
+        ownerId = jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE name = 'Vitya'", Long.class);
+        jdbcTemplate.execute("INSERT INTO items (name, description, owner, available) " +
+                "SELECT 'Вещь' || X, 'Супер', " + ownerId + ", TRUE FROM SYSTEM_RANGE(1, " + ITEMS + ")");
+        jdbcTemplate.execute("INSERT INTO bookings (start_date, end_date, booker_id, item_id, status) " +
+                "SELECT DATEADD('HOUR', X, CURRENT_TIMESTAMP), DATEADD('HOUR', X + 1, CURRENT_TIMESTAMP), " +
+                "(SELECT user_id FROM users WHERE name = 'Booker'), " +
+                "(SELECT MIN(item_id) FROM items) + MOD(X, " + ITEMS + "), " +
+                "CASE WHEN MOD(X, " + WAITING_EVERY + ") = 0 THEN 'WAITING' ELSE 'APPROVED' END " +
+                "FROM SYSTEM_RANGE(1, " + BOOKINGS + ")");
+    }
+
+    @Test
+    void ownerBookingsWithStatusInQueryTest() {
+        int waitingCount = BOOKINGS / WAITING_EVERY;
+
+        long start = System.nanoTime();
+        List<ResponseBookingDto> oldFirstPage = filterWaiting(
+                bookingRepository.findResponsesByFilter(filter(State.ALL), 0, PAGE_SIZE));
+        int oldQueries = 0;
+        int oldFound = 0;
+        List<ResponseBookingDto> page;
+
+        do {
+            page = bookingRepository.findResponsesByFilter(filter(State.ALL), oldQueries++ * PAGE_SIZE, PAGE_SIZE);
+            oldFound += filterWaiting(page).size();
+        } while (page.size() == PAGE_SIZE);
+
+        long oldNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<ResponseBookingDto> newFirstPage = bookingRepository.findResponsesByFilter(
+                filter(State.WAITING), 0, PAGE_SIZE);
+        int newQueries = 0;
+        List<ResponseBookingDto> found = new ArrayList<>();
+
+        do {
+            page = bookingRepository.findResponsesByFilter(filter(State.WAITING), newQueries++ * PAGE_SIZE, PAGE_SIZE);
+            found.addAll(page);
+        } while (page.size() == PAGE_SIZE);
+
+        long newNanos = System.nanoTime() - start;
+
+        log.info("Бронирования владельца: {} всего, ожидают {}: старый путь {} запросов за {} мкс, " +
+                        "новый путь {} запросов за {} мкс",
+                BOOKINGS, waitingCount, oldQueries, oldNanos / 1000, newQueries, newNanos / 1000);
+
+        assertTrue(oldFirstPage.size() < PAGE_SIZE);
+        assertEquals(PAGE_SIZE, newFirstPage.size());
+        assertTrue(newFirstPage.stream().allMatch(booking -> booking.getStatus() == BookingStatus.WAITING));
+        assertEquals(waitingCount, oldFound);
+        assertEquals(waitingCount, found.size());
+        assertTrue(found.stream().allMatch(booking -> booking.getStatus() == BookingStatus.WAITING));
+        assertTrue(newQueries < oldQueries);
+    }
+
+    private BookingFilter filter(State state) {
+        return BookingFilter.builder()
+                .userId(ownerId)
+                .owner(true)
+                .state(state)
+                .now(LocalDateTime.now())
+                .build();
+    }
+
+    private List<ResponseBookingDto> filterWaiting(List<ResponseBookingDto> bookings) {
+        return bookings.stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedCacheTest {
+    private final AtomicLong time = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ofSeconds(10), time::get);
+
+    private String load(Long key) {
+        loads.incrementAndGet();
+        return "value" + key;
+    }
+
+    @Test
+    void hitAndMissTest() {
+        assertEquals("value1", cache.get(1L, this::load));
+        assertEquals("value1", cache.get(1L, this::load));
+        assertEquals("value2", cache.get(2L, this::load));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedTest() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        cache.get(1L, this::load);
+        cache.get(3L, this::load);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+
+        cache.get(1L, this::load);
+        assertEquals(3, loads.get());
+        cache.get(2L, this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void expireAfterTtlTest() {
+        cache.get(1L, this::load);
+        time.addAndGet(Duration.ofSeconds(9).toNanos());
+        cache.get(1L, this::load);
+        assertEquals(1, loads.get());
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.get(1L, this::load);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void invalidateTest() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        cache.invalidate(1L);
+
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.evictionCount());
+
+        cache.get(1L, this::load);
+        assertEquals(3, loads.get());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void notCacheValueInvalidatedDuringLoadTest() {
+        assertEquals("stale", cache.get(1L, key -> {
+            cache.invalidate(key);
+            return "stale";
+        }));
+
+        assertEquals(0, cache.size());
+        assertEquals("value1", cache.get(1L, this::load));
+    }
+
+    @Test
+    void notCacheWhenLoaderThrowsTest() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, key -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(0, cache.size());
+    }
+}
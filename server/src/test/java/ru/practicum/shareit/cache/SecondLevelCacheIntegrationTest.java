@@ -0,0 +1,117 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.QueryCounter;
+import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.DbItemService;
+import ru.practicum.shareit.requests.model.ItemRequest;
+import ru.practicum.shareit.requests.storage.RequestsRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.DbUserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Без @Transactional: каждый вызов сервиса фиксирует свою транзакцию, как при обработке HTTP-запросов.
+// Тестовый запрос, который Spring привязывает к потоку теста, снимается: иначе повторное чтение отдала бы
+// памятка EntityLookup этого запроса, а не кэш второго уровня
+@SpringBootTest(properties = "shareit.cache.second-level.enabled=true")
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SecondLevelCacheIntegrationTest {
+    private UserDto owner;
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private DbUserService userService;
+
+    @Autowired
+    private DbItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RequestsRepository requestsRepository;
+
+    @Autowired
+    private SecondLevelCacheMetrics cacheMetrics;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void beforeEach() {
+        RequestContextHolder.resetRequestAttributes();
+        owner = userService.createUser(new UserDto(0, "Vitya", "vitya@mail.ru"));
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @Test
+    void repeatedUserReadHitsCacheTest() {
+        userService.getUser(owner.getId());
+
+        UserDto user = queryCounter.assertMaxQueries(0, () -> userService.getUser(owner.getId()));
+
+        assertEquals(owner.getName(), user.getName());
+        assertTrue(cacheMetrics.hitCount(SecondLevelCacheConfig.USERS) > 0);
+    }
+
+    @Test
+    void updatedUserIsNotStaleTest() {
+        userService.getUser(owner.getId());
+
+        userService.updateUser(new UserDto(0, "Up", null), owner.getId());
+        UserDto user = userService.getUser(owner.getId());
+
+        assertEquals("Up", user.getName());
+        assertEquals(owner.getEmail(), user.getEmail());
+    }
+
+    @Test
+    void deletedUserIsEvictedTest() {
+        userService.getUser(owner.getId());
+
+        userService.deleteUser(owner.getId());
+
+        assertThrows(StorageException.class, () -> userService.getUser(owner.getId()));
+    }
+
+    @Test
+    void newItemEvictsRequestItemsTest() {
+        UserDto requester = userService.createUser(new UserDto(0, "Vova", "vova@mail.ru"));
+        ItemRequest request = requestsRepository.save(new ItemRequest(null, "Хочется",
+                userRepository.findById(requester.getId()).orElseThrow(), null, LocalDateTime.now()));
+
+        assertEquals(0, countRequestItems(request.getId()));
+        assertEquals(0, countRequestItems(request.getId()));
+        assertTrue(cacheMetrics.hitCount(SecondLevelCacheConfig.REQUEST_ITEMS) > 0);
+
+        itemService.createItem(new ItemDto(0L, "Вещь", "Супер", true, request.getId()), owner.getId());
+
+        assertEquals(1, countRequestItems(request.getId()));
+    }
+
+    private int countRequestItems(long requestId) {
+        return transactionTemplate.execute(status -> requestsRepository.findById(requestId)
+                .orElseThrow()
+                .getItems()
+                .size());
+    }
+}
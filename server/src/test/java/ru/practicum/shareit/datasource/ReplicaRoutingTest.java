@@ -0,0 +1,113 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.DbItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.DbUserService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Две базы H2: основная из профиля test и реплика, в которую тест сам пишет строки и отставание.
+// Фоновая проверка отставания отключена большим периодом, тест вызывает ее сам. Тестовый запрос, который
+// Spring привязывает к потоку теста, снимается: иначе повторное чтение пользователя отдала бы памятка
+// EntityLookup, и второе чтение не дошло бы до источника соединений
+@SpringBootTest(properties = {
+        "shareit.datasource.replica.enabled=true",
+        "shareit.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replica.lag-query=select lag_millis from replica_lag",
+        "shareit.datasource.replica.max-lag-millis=1000",
+        "shareit.datasource.replica.check-interval-millis=3600000"
+})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:shareit-replica;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "test", "test"));
+    private UserDto user;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private DbUserService userService;
+
+    @Autowired
+    private DbItemService itemService;
+
+    @BeforeEach
+    void beforeEach() {
+        RequestContextHolder.resetRequestAttributes();
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replica.getDataSource());
+        replica.execute("create table replica_lag (lag_millis bigint)");
+        replica.update("insert into replica_lag values (0)");
+
+        user = userService.createUser(new UserDto(0, "Vitya", "vitya@mail.ru"));
+        replica.update("insert into users (user_id, name, email) values (?, 'Vitya с реплики', 'vitya@mail.ru')",
+                user.getId());
+        routingDataSource.checkLag();
+    }
+
+    @AfterEach
+    void afterEach() {
+        replica.execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransactionReadsReplicaTest() {
+        assertEquals("Vitya с реплики", userService.getUser(user.getId()).getName());
+        assertEquals(1, userService.getAllUsers().size());
+    }
+
+    @Test
+    void writeGoesToPrimaryTest() {
+        userService.updateUser(new UserDto(0, "Up", null), user.getId());
+
+        assertEquals("Vitya с реплики", replica.queryForObject("select name from users where user_id = ?",
+                String.class, user.getId()));
+
+        replica.update("update users set name = 'Up' where user_id = ?", user.getId());
+        assertEquals("Up", userService.getUser(user.getId()).getName());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimaryTest() {
+        replica.update("update replica_lag set lag_millis = 5000");
+        routingDataSource.checkLag();
+
+        assertEquals("Vitya", userService.getUser(user.getId()).getName());
+
+        replica.update("update replica_lag set lag_millis = 10");
+        routingDataSource.checkLag();
+
+        assertEquals("Vitya с реплики", userService.getUser(user.getId()).getName());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimaryTest() {
+        replica.execute("drop table replica_lag");
+        routingDataSource.checkLag();
+
+        assertEquals("Vitya", userService.getUser(user.getId()).getName());
+    }
+
+    @Test
+    void cachedItemCardIsReadFromPrimaryTest() {
+        ItemDto item = itemService.createItem(new ItemDto(0L, "Вещь", "Супер", true, null), user.getId());
+
+        // На реплику вещь еще не пришла, но карточка все равно находится
+        assertEquals(item.getName(), itemService.getItem(item.getId(), user.getId()).getName());
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoBookings;
 import ru.practicum.shareit.item.service.ItemService;
@@ -276,6 +277,41 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.[0].requestId", is(itemDtoResponse.getRequestId())));
     }
 
+    @Test
+    void getAvailabilityTest() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0, 5);
+        LocalDateTime end = start.plusDays(1);
+
+        Mockito
+                .when(mokItemService.getAvailability(1L, start, end))
+                .thenReturn(new ItemAvailabilityDto(1L, start, end, true));
+
+        mvc.perform(get("/items/1/availability")
+                        .param("start", "2030-01-01T10:00:05")
+                        .param("end", "2030-01-02T10:00:05")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.start", is("2030-01-01T10:00:05")))
+                .andExpect(jsonPath("$.available", is(true)));
+    }
+
+    @Test
+    void getNextFreeTest() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0, 5);
+
+        Mockito
+                .when(mokItemService.getNextFree(1L, null, 60))
+                .thenReturn(new ItemAvailabilityDto(1L, start, start.plusHours(1), true));
+
+        mvc.perform(get("/items/1/next-free")
+                        .param("minutes", "60")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start", is("2030-01-01T10:00:05")))
+                .andExpect(jsonPath("$.end", is("2030-01-01T11:00:05")));
+    }
+
     @Test
     void postCommentTest() throws Exception {
         Mockito
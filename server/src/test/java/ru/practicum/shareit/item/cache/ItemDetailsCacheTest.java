@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDtoBookings;
+import ru.practicum.shareit.requests.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ItemDetailsCacheTest {
+    private final ItemDetailsCache cache = new ItemDetailsCache(1, 600, 600);
+    private final CachedItem item = new CachedItem(1L,
+            new ItemDtoBookings(1L, "Вещь", "Супер", true, null, null, null, List.of()));
+    private final ItemBookings bookings = new ItemBookings(
+            new BookingDto(1L, LocalDateTime.now(), LocalDateTime.now().plusDays(1), 2L, BookingStatus.APPROVED),
+            null);
+
+    @Test
+    void invalidateOnEventsTest() {
+        cache.getDetails(1L, id -> item);
+        cache.getBookings(1L, id -> bookings);
+
+        cache.onItemBookingsChanged(new ItemBookingsChangedEvent(1L));
+        assertSame(item, cache.getDetails(1L, id -> null));
+        assertNull(cache.getBookings(1L, id -> null));
+
+        cache.onItemChanged(new ItemChangedEvent(1L));
+        assertNull(cache.getDetails(1L, id -> null));
+    }
+
+    @Test
+    void metricsTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.getDetails(1L, id -> item);
+        cache.getDetails(1L, id -> item);
+        cache.getDetails(2L, id -> item);
+
+        assertEquals(1, registry.get("cache.gets")
+                .tags("cache", ItemDetailsCache.DETAILS, "result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets")
+                .tags("cache", ItemDetailsCache.DETAILS, "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions")
+                .tag("cache", ItemDetailsCache.DETAILS).functionCounter().count());
+        assertEquals(1, registry.get("cache.size")
+                .tag("cache", ItemDetailsCache.DETAILS).gauge().value());
+        assertEquals(0, registry.get("cache.size")
+                .tag("cache", ItemDetailsCache.BOOKINGS).gauge().value());
+    }
+
+    @Test
+    void cachedItemKeepsOnlyRequestIdTest() {
+        ItemRequest request = new ItemRequest(5L, "Нужна вещь", new User(2L, "Vitya", "vitya@mail.ru"),
+                null, LocalDateTime.now());
+        CachedItem cachedItem = new CachedItem(1L,
+                new ItemDtoBookings(1L, "Вещь", "Супер", true, request, null, null, List.of()));
+
+        ItemDtoBookings first = cachedItem.toDto();
+        ItemDtoBookings second = cachedItem.toDto();
+
+        assertEquals(5L, cachedItem.getRequestId());
+        assertEquals(5L, first.getRequest().getId());
+        assertNull(first.getRequest().getRequester());
+        assertNotSame(first.getRequest(), second.getRequest());
+    }
+}
@@ -74,4 +74,27 @@ class CommentRepositoryTest {
         assertEquals(3, comments.size());
         assertEquals(List.of(comment, comment2, comment3), comments);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByItemIdsTest() {
+        Item item2 = new Item(null, "Вещь2", "Супер2", true, user1, null);
+        Item item3 = new Item(null, "Вещь3", "Супер3", true, user1, null);
+        em.persist(item2);
+        em.persist(item3);
+
+        Comment comment2 = new Comment(
+                null,
+                "Балдеж",
+                user2,
+                item2,
+                LocalDateTime.now());
+
+        em.persist(comment2);
+
+        List<Comment> comments = commentRepository.findAllByItemIds(
+                List.of(item1.getId(), item2.getId(), item3.getId()));
+
+        assertEquals(List.of(comment, comment2), comments);
+        assertEquals(List.of(), commentRepository.findAllByItemIds(List.of(item3.getId())));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class FullTextItemSearchTest {
+    @InjectMocks
+    private FullTextItemSearch itemSearch;
+    @Mock
+    private ItemRepository mokItemRepository;
+
+    @Test
+    void findTest() {
+        ItemDto item = new ItemDto(1L, "Вещь", "Супер", true, null);
+
+        Mockito
+                .when(mokItemRepository.findFullText("вещь", PageRequest.of(0, 10)))
+                .thenReturn(List.of(item));
+
+        assertEquals(List.of(item), itemSearch.find("вещь", PageRequest.of(0, 10)));
+        Mockito.verify(mokItemRepository, Mockito.never())
+                .findAvailable(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    void findAfterTest() {
+        ItemDto item = new ItemDto(5L, "Вещь", "Супер", true, null);
+
+        Mockito
+                .when(mokItemRepository.findFullTextAfter("вещь", 4L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(item));
+
+        assertEquals(List.of(item), itemSearch.findAfter("вещь", 4L, 10));
+    }
+}
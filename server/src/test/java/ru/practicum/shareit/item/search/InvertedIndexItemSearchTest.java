@@ -0,0 +1,155 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class InvertedIndexItemSearchTest {
+    @InjectMocks
+    private InvertedIndexItemSearch itemSearch;
+    @Mock
+    private ItemRepository mokItemRepository;
+    private Item item1;
+    private Item item2;
+    private Item item3;
+    private Item item4;
+
+    @BeforeEach
+    void beforeEach() {
+        item1 = new Item(1L, "Вещь", "Супер", true, null, null);
+        item2 = new Item(2L, "Cупер", "Вещь то супер", true, null, null);
+        item3 = new Item(3L, "Чевапчич", "с гнильцой", true, null, null);
+        item4 = new Item(4L, "Вещь", "Супер", false, null, null);
+
+        Mockito
+                .when(mokItemRepository.findAllByIdGreaterThanOrderById(0L, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(item1, item2, item3, item4));
+
+        itemSearch.build();
+    }
+
+    @Test
+    void findTest() {
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(1L, 2L)))
+                .thenReturn(dtos(item2, item1));
+
+        assertEquals(dtos(item1, item2), itemSearch.find("вещь", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findWithPaginationTest() {
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(2L)))
+                .thenReturn(dtos(item2));
+
+        assertEquals(dtos(item2), itemSearch.find("вещь", PageRequest.of(1, 1)));
+        assertEquals(List.of(), itemSearch.find("вещь", PageRequest.of(1, 2)));
+    }
+
+    @Test
+    void findShortAndMissingTextTest() {
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(3L)))
+                .thenReturn(dtos(item3));
+
+        assertEquals(dtos(item3), itemSearch.find("ваПч", PageRequest.of(0, 10)));
+        assertEquals(List.of(), itemSearch.find("дрель", PageRequest.of(0, 10)));
+
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(dtos(item1, item2, item3));
+
+        assertEquals(dtos(item1, item2, item3), itemSearch.find("с", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void indexUpdatedItemTest() {
+        Item updated = new Item(1L, "Дрель", "Ударная", true, null, null);
+        Item unavailable = new Item(2L, "Cупер", "Вещь то супер", false, null, null);
+        itemSearch.index(updated);
+        itemSearch.index(unavailable);
+
+        assertEquals(List.of(), itemSearch.find("вещь", PageRequest.of(0, 10)));
+
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(1L)))
+                .thenReturn(dtos(updated));
+
+        assertEquals(dtos(updated), itemSearch.find("дрель", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void repeatedUpdatesReuseOrdinalTest() {
+        for (int i = 0; i < 100; i++) {
+            itemSearch.onItemSaved(new ItemSavedEvent(new Item(1L, "Дрель" + i, "Ударная", true, null, null)));
+        }
+
+        assertEquals(4, itemSearch.size());
+
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(1L)))
+                .thenReturn(dtos(item1));
+
+        assertEquals(dtos(item1), itemSearch.find("дрель99", PageRequest.of(0, 10)));
+        assertEquals(List.of(), itemSearch.find("дрель98", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void lowerCaseIgnoresDefaultLocaleTest() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+
+        try {
+            Item item = new Item(5L, "INDIGO", "Краска", true, null, null);
+            itemSearch.index(item);
+
+            Mockito
+                    .when(mokItemRepository.findDtosByIdIn(List.of(5L)))
+                    .thenReturn(dtos(item));
+
+            assertEquals(dtos(item), itemSearch.find("indigo", PageRequest.of(0, 10)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void findAfterTest() {
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(2L)))
+                .thenReturn(dtos(item2));
+
+        assertEquals(dtos(item2), itemSearch.findAfter("вещь", 1L, 10));
+        assertEquals(List.of(), itemSearch.findAfter("вещь", 2L, 10));
+
+        Mockito
+                .when(mokItemRepository.findDtosByIdIn(List.of(1L)))
+                .thenReturn(dtos(item1));
+
+        assertEquals(dtos(item1), itemSearch.findAfter("вещь", 0L, 1));
+    }
+
+    private static List<ItemDto> dtos(Item... items) {
+        return Arrays.stream(items)
+                .map(item -> new ItemDto(item.getId(), item.getName(), item.getDescription(),
+                        item.getAvailable(), null))
+                .collect(Collectors.toList());
+    }
+}
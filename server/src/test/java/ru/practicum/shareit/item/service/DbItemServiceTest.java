@@ -1,40 +1,58 @@
 package ru.practicum.shareit.item.service;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.availability.ItemAvailabilityIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
 import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryRepository;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.exeption.ValidationException;
+import ru.practicum.shareit.item.cache.ItemBookingsChangedEvent;
+import ru.practicum.shareit.item.cache.ItemChangedEvent;
+import ru.practicum.shareit.item.cache.ItemDetailsCache;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSavedEvent;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.requests.model.ItemRequest;
 import ru.practicum.shareit.requests.storage.RequestsRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 class DbItemServiceTest {
@@ -47,8 +65,6 @@ class DbItemServiceTest {
     private final CommentDto comment = new CommentDto(1, "Балдеж", "Vova", lastBookingDto.getEnd());
     private final User user = new User(1L, "Vitya", "vitya@mail.ru");
     private final ItemRequest itemRequest = new ItemRequest(1L, "Хочется", null, null, null);
-    @InjectMocks
-    private DbItemService itemService;
     @Mock
     private ItemMapper mokItemMapper;
     @Mock
@@ -60,11 +76,22 @@ class DbItemServiceTest {
     @Mock
     private BookingRepository mokBookingRepository;
     @Mock
+    private ItemBookingSummaryRepository mokSummaryRepository;
+    @Mock
     private BookingMapper mokBookingMapper;
     @Mock
     private CommentRepository mokCommentRepository;
     @Mock
     private CommentMapper mokCommentMapper;
+    @Mock
+    private ItemSearch mokItemSearch;
+    @Spy
+    private ItemDetailsCache itemDetailsCache = new ItemDetailsCache(100, 600, 600);
+    @Mock
+    private ItemAvailabilityIndex mokAvailabilityIndex;
+    @Mock
+    private ApplicationEventPublisher mokEventPublisher;
+    private DbItemService itemService;
     private ItemDto itemDto;
     private ItemDto itemDto1;
     private ItemDtoBookings itemDtoBookings;
@@ -73,6 +100,18 @@ class DbItemServiceTest {
 
     @BeforeEach
     void beforeEach() {
+        itemService = new DbItemService(mokItemMapper,
+                mokItemRepository,
+                new EntityLookup(mokUserRepository, mokItemRepository, mokBookingRepository, mokRequestsRepository),
+                mokBookingRepository,
+                mokSummaryRepository,
+                mokBookingMapper,
+                mokCommentRepository,
+                mokCommentMapper,
+                mokItemSearch,
+                itemDetailsCache,
+                mokAvailabilityIndex,
+                mokEventPublisher);
         item = new Item(0L, "Вещь", "Супер", true, null, null);
         itemDto = new ItemDto(0L, "Вещь", "Супер", true, null);
         item1 = new Item(1L, "Вещь", "Супер", true, user, itemRequest);
@@ -90,21 +129,15 @@ class DbItemServiceTest {
 
     @Test
     void createItemTest() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
-        Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(true);
         Mockito
                 .when(mokUserRepository.findById(user.getId()))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(mokRequestsRepository.findById(itemRequest.getId()))
-                .thenReturn(Optional.of(itemRequest));
+                .when(mokRequestsRepository.getReferenceById(itemRequest.getId()))
+                .thenReturn(itemRequest);
 
         Mockito
-                .when(mokItemRepository.save(Mockito.any(Item.class)))
+                .when(mokItemRepository.saveAndFlush(Mockito.any(Item.class)))
                 .thenReturn(item1);
         Mockito
                 .when(mokItemMapper.toItem(itemDto))
@@ -125,45 +158,40 @@ class DbItemServiceTest {
         Mockito.verify(mokUserRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
-                .findById(1L);
+                .getReferenceById(1L);
+        Mockito.verify(mokRequestsRepository, Mockito.never())
+                .findById(Mockito.anyLong());
         Mockito.verify(mokItemRepository, Mockito.times(1))
-                .save(Mockito.any(Item.class));
+                .saveAndFlush(Mockito.any(Item.class));
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .save(ItemBookingSummary.of(1L, null, null));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemSavedEvent(item1));
     }
 
     @Test
     void itemCreateWithIncorrectId() {
         itemDto.setId(1L);
         assertThrows(StorageException.class, () -> itemService.createItem(itemDto, 1L));
-
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
-        itemDto.setId(0L);
-        assertThrows(StorageException.class, () -> itemService.createItem(itemDto, 1L));
+        Mockito.verifyNoInteractions(mokItemRepository, mokUserRepository);
     }
 
     @Test
     void itemCreateWithNonexistentUser() {
         Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(user.getId()))
+                .thenReturn(Optional.empty());
+
         assertThrows(StorageException.class, () -> itemService.createItem(itemDto, 1L));
     }
 
     @Test
     void itemCreateWhenRequestNull() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
-        Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(true);
         Mockito
                 .when(mokUserRepository.findById(user.getId()))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(mokItemRepository.save(Mockito.any(Item.class)))
+                .when(mokItemRepository.saveAndFlush(Mockito.any(Item.class)))
                 .thenReturn(item1);
         Mockito
                 .when(mokItemMapper.toItem(itemDto))
@@ -183,20 +211,13 @@ class DbItemServiceTest {
         Mockito.verify(mokUserRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(mokRequestsRepository, Mockito.never())
-                .findById(Mockito.anyLong());
+                .getReferenceById(Mockito.anyLong());
         Mockito.verify(mokItemRepository, Mockito.times(1))
-                .save(Mockito.any(Item.class));
+                .saveAndFlush(Mockito.any(Item.class));
     }
 
     @Test
     void itemCreateWithNonexistentRequest() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
-
-        Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(true);
         Mockito
                 .when(mokUserRepository.findById(user.getId()))
                 .thenReturn(Optional.of(user));
@@ -206,21 +227,28 @@ class DbItemServiceTest {
                 .thenReturn(item);
 
         Mockito
-                .when(mokRequestsRepository.findById(Mockito.anyLong()))
-                .thenReturn(Optional.empty());
+                .when(mokRequestsRepository.getReferenceById(2L))
+                .thenReturn(new ItemRequest(2L, null, null, null, null));
+
+        // Несуществующий запрос обнаруживается по нарушению внешнего ключа при сохранении вещи
+        Mockito
+                .when(mokItemRepository.saveAndFlush(Mockito.any(Item.class)))
+                .thenThrow(new DataIntegrityViolationException("items_request_id_fkey",
+                        new ConstraintViolationException("Нарушен внешний ключ",
+                                new SQLException("Нарушен внешний ключ", "23503"), Item.REQUEST_FOREIGN_KEY)));
 
         itemDto.setRequestId(2L);
         assertThrows(StorageException.class, () -> itemService.createItem(itemDto, 1L));
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
-                .findById(2L);
+                .getReferenceById(2L);
+        Mockito.verify(mokRequestsRepository, Mockito.never())
+                .findById(Mockito.anyLong());
+        Mockito.verify(mokSummaryRepository, Mockito.never())
+                .save(Mockito.any(ItemBookingSummary.class));
     }
 
     @Test
     void updateItemTest() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokItemMapper.toItem(Mockito.any(ItemDto.class)))
                 .thenReturn(item);
@@ -229,14 +257,6 @@ class DbItemServiceTest {
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item1));
 
-        Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.findById(user.getId()))
-                .thenReturn(Optional.of(user));
-
         Mockito.when(mokItemRepository.save(Mockito.any(Item.class)))
                 .thenReturn(item1);
 
@@ -249,26 +269,19 @@ class DbItemServiceTest {
                 .toItem(itemDto);
         Mockito.verify(mokItemMapper, Mockito.times(1))
                 .toItemDto(item1);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
+        Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(mokRequestsRepository, Mockito.never())
-                .findById(Mockito.anyLong());
+        Mockito.verifyNoInteractions(mokUserRepository, mokRequestsRepository);
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .save(Mockito.any(Item.class));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemChangedEvent(1L));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(Mockito.any(ItemSavedEvent.class));
     }
 
     @Test
     void updateWhenItemNonexistent() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(false);
-
-        assertThrows(StorageException.class, () -> itemService.updateItem(itemDto, 1L, 1L));
-
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokItemRepository.findById(1L))
                 .thenReturn(Optional.empty());
@@ -278,10 +291,6 @@ class DbItemServiceTest {
 
     @Test
     void updateWhenNotOwner() {
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item1));
@@ -298,10 +307,6 @@ class DbItemServiceTest {
         item.setDescription(null);
         item.setAvailable(null);
 
-        Mockito
-                .when(mokItemRepository.existsById(Mockito.anyLong()))
-                .thenReturn(true);
-
         Mockito
                 .when(mokItemMapper.toItem(Mockito.any(ItemDto.class)))
                 .thenReturn(item);
@@ -310,14 +315,6 @@ class DbItemServiceTest {
                 .when(mokItemRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(item1));
 
-        Mockito
-                .when(mokUserRepository.existsById(user.getId()))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.findById(user.getId()))
-                .thenReturn(Optional.of(user));
-
         Mockito.when(mokItemRepository.save(Mockito.any(Item.class)))
                 .thenReturn(item1);
 
@@ -330,12 +327,13 @@ class DbItemServiceTest {
                 .toItem(itemDto);
         Mockito.verify(mokItemMapper, Mockito.times(1))
                 .toItemDto(item1);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
+        Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(mokRequestsRepository, Mockito.never())
-                .findById(Mockito.anyLong());
+        Mockito.verifyNoInteractions(mokUserRepository, mokRequestsRepository);
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .save(Mockito.any(Item.class));
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemChangedEvent(1L));
     }
 
     @Test
@@ -349,18 +347,14 @@ class DbItemServiceTest {
                 .thenReturn(itemDtoBookings);
 
         Booking bookingLast = new Booking(1L, null, null, null, null, null);
+        Booking bookingNext = new Booking(2L, null, null, null, null, null);
         Mockito
-                .when(mokBookingRepository.getLastBookingForItem(1L))
-                .thenReturn(bookingLast);
+                .when(mokSummaryRepository.findAllByItemIds(Set.of(1L)))
+                .thenReturn(List.of(ItemBookingSummary.of(1L, bookingLast, bookingNext)));
 
         Mockito.when(mokBookingMapper.toItemBooking(bookingLast))
                 .thenReturn(lastBookingDto);
 
-        Booking bookingNext = new Booking(2L, null, null, null, null, null);
-        Mockito
-                .when(mokBookingRepository.getNextBookingForItem(1L))
-                .thenReturn(bookingNext);
-
         Mockito.when(mokBookingMapper.toItemBooking(bookingNext))
                 .thenReturn(nextBookingDto);
 
@@ -372,6 +366,8 @@ class DbItemServiceTest {
                 .thenReturn(comment);
 
         ItemDtoBookings itemDtoBookingsFromService = itemService.getItem(1L, 1L);
+        // Карточка из кэша несет только id запроса
+        itemDtoBookings.setRequest(new ItemRequest(itemRequest.getId(), null, null, null, null));
         itemDtoBookings.setLastBooking(lastBookingDto);
         itemDtoBookings.setNextBooking(nextBookingDto);
         itemDtoBookings.setComments(List.of(comment, comment));
@@ -379,10 +375,10 @@ class DbItemServiceTest {
         assertEquals(itemDtoBookings, itemDtoBookingsFromService);
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .getLastBookingForItem(1L);
-        Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .getNextBookingForItem(1L);
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .findAllByItemIds(Set.of(1L));
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findLastBookingsForItems(Mockito.anyCollection());
         Mockito.verify(mokCommentRepository, Mockito.times(1))
                 .findAllByItem_Id(1L);
         Mockito.verify(mokCommentMapper, Mockito.times(2))
@@ -402,14 +398,6 @@ class DbItemServiceTest {
                 .when(mokItemMapper.toItemBookingDto(Mockito.any(Item.class)))
                 .thenReturn(itemDtoBookings);
 
-        Mockito
-                .when(mokBookingRepository.getLastBookingForItem(1L))
-                .thenReturn(null);
-
-        Mockito
-                .when(mokBookingRepository.getNextBookingForItem(1L))
-                .thenReturn(null);
-
         Mockito
                 .when(mokCommentRepository.findAllByItem_Id(1L))
                 .thenReturn(List.of());
@@ -420,10 +408,13 @@ class DbItemServiceTest {
         assertEquals(itemDtoBookings, itemDtoBookingsFromService);
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findById(1L);
+        // Сводки еще нет - она строится по истории бронирований без записи при чтении
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .getLastBookingForItem(1L);
+                .findLastBookingsForItems(Set.of(1L));
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .getNextBookingForItem(1L);
+                .findNextBookingsForItems(Set.of(1L));
+        Mockito.verify(mokSummaryRepository, Mockito.never())
+                .save(Mockito.any(ItemBookingSummary.class));
         Mockito.verify(mokCommentRepository, Mockito.times(1))
                 .findAllByItem_Id(1L);
         Mockito.verify(mokCommentMapper, Mockito.never())
@@ -448,21 +439,77 @@ class DbItemServiceTest {
                 .thenReturn(comment);
 
         ItemDtoBookings itemDtoBookingsFromService = itemService.getItem(1L, 2L);
+        itemDtoBookings.setRequest(new ItemRequest(itemRequest.getId(), null, null, null, null));
         itemDtoBookings.setComments(List.of(comment, comment));
 
         assertEquals(itemDtoBookings, itemDtoBookingsFromService);
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .getLastBookingForItem(Mockito.anyLong());
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .getNextBookingForItem(Mockito.anyLong());
+        Mockito.verify(mokSummaryRepository, Mockito.never())
+                .findAllByItemIds(Mockito.anyCollection());
         Mockito.verify(mokCommentRepository, Mockito.times(1))
                 .findAllByItem_Id(1L);
         Mockito.verify(mokCommentMapper, Mockito.times(2))
                 .toCommentDto(Mockito.any(Comment.class));
     }
 
+    @Test
+    void getItemFromCacheTest() {
+        Mockito
+                .when(mokItemRepository.findById(1L))
+                .thenReturn(Optional.of(item1));
+
+        Mockito
+                .when(mokItemMapper.toItemBookingDto(item1))
+                .thenReturn(itemDtoBookings);
+
+        Booking bookingLast = new Booking(1L, null, null, null, null, null);
+        Mockito
+                .when(mokSummaryRepository.findAllByItemIds(Set.of(1L)))
+                .thenReturn(List.of(ItemBookingSummary.of(1L, bookingLast, null)));
+
+        Mockito.when(mokBookingMapper.toItemBooking(bookingLast))
+                .thenReturn(lastBookingDto);
+
+        Mockito
+                .when(mokCommentRepository.findAllByItem_Id(1L))
+                .thenReturn(List.of());
+
+        ItemDtoBookings ownerItem = itemService.getItem(1L, 1L);
+        assertEquals(lastBookingDto, ownerItem.getLastBooking());
+
+        // Изменения в полученном экземпляре не должны попадать в кэш
+        ownerItem.setName("Другое имя");
+        ownerItem.getComments().add(comment);
+
+        ItemDtoBookings otherUserItem = itemService.getItem(1L, 2L);
+        assertEquals(item1.getName(), otherUserItem.getName());
+        assertTrue(otherUserItem.getComments().isEmpty());
+        assertNull(otherUserItem.getLastBooking());
+
+        assertEquals(lastBookingDto, itemService.getItem(1L, 1L).getLastBooking());
+        Mockito.verify(mokItemRepository, Mockito.times(1))
+                .findById(1L);
+        Mockito.verify(mokCommentRepository, Mockito.times(1))
+                .findAllByItem_Id(1L);
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .findAllByItemIds(Set.of(1L));
+
+        itemDetailsCache.onItemBookingsChanged(new ItemBookingsChangedEvent(1L));
+        itemService.getItem(1L, 1L);
+        Mockito.verify(mokItemRepository, Mockito.times(1))
+                .findById(1L);
+        Mockito.verify(mokSummaryRepository, Mockito.times(2))
+                .findAllByItemIds(Set.of(1L));
+
+        itemDetailsCache.onItemChanged(new ItemChangedEvent(1L));
+        itemService.getItem(1L, 2L);
+        Mockito.verify(mokItemRepository, Mockito.times(2))
+                .findById(1L);
+        Mockito.verify(mokCommentRepository, Mockito.times(2))
+                .findAllByItem_Id(1L);
+    }
+
     @Test
     void getAllUserItemsTest() {
         Item item1 = new Item(1L, "1Вещь", "1Супер", true, user, itemRequest);
@@ -522,25 +569,27 @@ class DbItemServiceTest {
                 .when(mokItemMapper.toItemBookingDto(item4))
                 .thenReturn(itemDtoBookings4);
 
-        Booking bookingLast = new Booking(1L, null, null, null, null, null);
+        Set<Long> itemIds = Set.of(1L, 2L, 3L, 4L);
+
+        Booking bookingLast = new Booking(1L, null, null, item1, null, null);
         Mockito
-                .when(mokBookingRepository.getLastBookingForItem(1L))
-                .thenReturn(bookingLast);
+                .when(mokBookingRepository.findLastBookingsForItems(itemIds))
+                .thenReturn(List.of(bookingLast));
 
         Mockito.when(mokBookingMapper.toItemBooking(bookingLast))
                 .thenReturn(lastBookingDto);
 
-        Booking bookingNext = new Booking(2L, null, null, null, null, null);
+        Booking bookingNext = new Booking(2L, null, null, item1, null, null);
         Mockito
-                .when(mokBookingRepository.getNextBookingForItem(1L))
-                .thenReturn(bookingNext);
+                .when(mokBookingRepository.findNextBookingsForItems(itemIds))
+                .thenReturn(List.of(bookingNext));
 
         Mockito.when(mokBookingMapper.toItemBooking(bookingNext))
                 .thenReturn(nextBookingDto);
 
         Mockito
-                .when(mokCommentRepository.findAllByItem_Id(1L))
-                .thenReturn(List.of(new Comment(1L, "a", null, null, null)));
+                .when(mokCommentRepository.findAllByItemIds(itemIds))
+                .thenReturn(List.of(new Comment(1L, "a", null, item1, null)));
 
         Mockito
                 .when(mokCommentMapper.toCommentDto(Mockito.any(Comment.class)))
@@ -553,60 +602,175 @@ class DbItemServiceTest {
         assertEquals(listToCompare, itemService.getAllUserItems(1L, 2, 10));
         Mockito.verify(mokItemRepository, Mockito.times(1))
                 .findAllByOwner_IdOrderById(1L, PageRequest.of(2 / 10, 10));
-        Mockito.verify(mokBookingRepository, Mockito.times(4))
-                .getLastBookingForItem(Mockito.anyLong());
-        Mockito.verify(mokBookingRepository, Mockito.times(4))
-                .getNextBookingForItem(Mockito.anyLong());
-        Mockito.verify(mokCommentRepository, Mockito.times(4))
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findLastBookingsForItems(itemIds);
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findNextBookingsForItems(itemIds);
+        Mockito.verify(mokSummaryRepository, Mockito.times(1))
+                .findAllByItemIds(itemIds);
+        Mockito.verify(mokSummaryRepository, Mockito.never())
+                .save(Mockito.any(ItemBookingSummary.class));
+        Mockito.verify(mokCommentRepository, Mockito.times(1))
+                .findAllByItemIds(itemIds);
+        Mockito.verify(mokCommentRepository, Mockito.never())
                 .findAllByItem_Id(Mockito.anyLong());
         Mockito.verify(mokCommentMapper, Mockito.times(1))
                 .toCommentDto(Mockito.any(Comment.class));
     }
 
     @Test
-    void searchItemTest() {
-        Item item2 = new Item(2L, "2 Cупер", "2 Вещь", true, user, null);
-        ItemDto itemDto2 = new ItemDto(item2.getId(),
+    void getAllUserItemsFromSummaryTest() {
+        Item item2 = new Item(2L, "2Вещь", "2Супер", true, user, null);
+        ItemDtoBookings itemDtoBookings2 = new ItemDtoBookings(item2.getId(),
                 item2.getName(),
                 item2.getDescription(),
                 item2.getAvailable(),
-                null);
+                null,
+                null,
+                null,
+                List.of());
 
         Mockito
-                .when(mokItemRepository.find("вещь", PageRequest.of(2 / 10, 10)))
-                .thenReturn(List.of(item1, item2));
+                .when(mokItemRepository.findAllByOwner_IdOrderById(user.getId(), PageRequest.of(0, 10)))
+                .thenReturn(List.of(item2));
 
         Mockito
-                .when(mokItemMapper.toItemDto(item1))
-                .thenReturn(itemDto1);
+                .when(mokItemMapper.toItemBookingDto(item2))
+                .thenReturn(itemDtoBookings2);
 
+        Booking bookingNext = new Booking(2L, null, null, item2, null, null);
         Mockito
-                .when(mokItemMapper.toItemDto(item2))
-                .thenReturn(itemDto2);
+                .when(mokSummaryRepository.findAllByItemIds(Set.of(2L)))
+                .thenReturn(List.of(ItemBookingSummary.of(2L, null, bookingNext)));
+
+        Mockito.when(mokBookingMapper.toItemBooking(bookingNext))
+                .thenReturn(nextBookingDto);
 
+        List<ItemDtoBookings> items = itemService.getAllUserItems(1L, 0, 10);
+        assertEquals(1, items.size());
+        assertNull(items.get(0).getLastBooking());
+        assertEquals(nextBookingDto, items.get(0).getNextBooking());
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findLastBookingsForItems(Mockito.anyCollection());
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findNextBookingsForItems(Mockito.anyCollection());
+    }
+
+    @Test
+    void getAllUserItemsWhenNoItems() {
+        Mockito
+                .when(mokItemRepository.findAllByOwner_IdOrderById(user.getId(), PageRequest.of(0, 10)))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(), itemService.getAllUserItems(1L, 0, 10));
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findLastBookingsForItems(Mockito.anyCollection());
+        Mockito.verify(mokBookingRepository, Mockito.never())
+                .findNextBookingsForItems(Mockito.anyCollection());
+        Mockito.verify(mokCommentRepository, Mockito.never())
+                .findAllByItemIds(Mockito.anyCollection());
+    }
+
+    @Test
+    void getAllUserItemsAfterTest() {
+        Item item2 = new Item(2L, "2Вещь", "2Супер", true, user, null);
+        ItemDtoBookings itemDtoBookings2 = new ItemDtoBookings(item2.getId(),
+                item2.getName(),
+                item2.getDescription(),
+                item2.getAvailable(),
+                null,
+                null,
+                null,
+                List.of());
+
+        Mockito
+                .when(mokItemRepository.findAllByOwner_IdAndIdGreaterThanOrderById(
+                        user.getId(), 1L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(item2));
+
+        Mockito
+                .when(mokItemMapper.toItemBookingDto(item2))
+                .thenReturn(itemDtoBookings2);
+
+        assertEquals(List.of(itemDtoBookings2), itemService.getAllUserItemsAfter(1L, 1L, 10));
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findLastBookingsForItems(Set.of(2L));
+        Mockito.verify(mokBookingRepository, Mockito.times(1))
+                .findNextBookingsForItems(Set.of(2L));
+        Mockito.verify(mokCommentRepository, Mockito.times(1))
+                .findAllByItemIds(Set.of(2L));
+    }
+
+    @Test
+    void searchItemTest() {
+        ItemDto itemDto2 = new ItemDto(2L, "2 Cупер", "2 Вещь", true, null);
         List<ItemDto> itemDtoList = List.of(itemDto1, itemDto2);
 
+        Mockito
+                .when(mokItemSearch.find("вещь", PageRequest.of(2 / 10, 10)))
+                .thenReturn(itemDtoList);
+
         assertEquals(itemDtoList, itemService.searchItems("Вещь", 2, 10));
         assertEquals(itemDtoList, itemService.searchItems(" ВЕЩЬ  ", 2, 10));
         assertEquals(List.of(), itemService.searchItems("", 2, 10));
         assertEquals(List.of(), itemService.searchItems(" ", 2, 10));
-        Mockito.verify(mokItemRepository, Mockito.times(2))
+        Mockito.verify(mokItemSearch, Mockito.times(2))
                 .find("вещь", PageRequest.of(2 / 10, 10));
-        Mockito.verify(mokItemMapper, Mockito.times(4))
+        // Поиск отдает готовые ответы, маппинг сущностей не нужен
+        Mockito.verify(mokItemMapper, Mockito.never())
                 .toItemDto(Mockito.any(Item.class));
     }
 
+    @Test
+    void searchItemsAfterTest() {
+        ItemDto itemDto2 = new ItemDto(2L, "2 Cупер", "2 Вещь", true, null);
+
+        Mockito
+                .when(mokItemSearch.findAfter("вещь", 1L, 10))
+                .thenReturn(List.of(itemDto2));
+
+        assertEquals(List.of(itemDto2), itemService.searchItemsAfter(" ВЕЩЬ  ", 1L, 10));
+        assertEquals(List.of(), itemService.searchItemsAfter("", 1L, 10));
+        Mockito.verify(mokItemSearch, Mockito.times(1))
+                .findAfter(Mockito.anyString(), Mockito.anyLong(), Mockito.anyInt());
+        Mockito.verify(mokItemSearch, Mockito.never())
+                .find(Mockito.anyString(), Mockito.any());
+    }
 
     @Test
-    void createCommentTest() {
-        CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
+    void getAvailabilityTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(1);
 
         Mockito
-                .when(mokItemRepository.existsById(1L))
-                .thenReturn(true);
+                .when(mokAvailabilityIndex.isFree(1L, start, end))
+                .thenReturn(false);
+
+        assertEquals(new ItemAvailabilityDto(1L, start, end, false), itemService.getAvailability(1L, start, end));
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(1L, end, start));
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(1L,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1)));
+        Mockito.verify(mokAvailabilityIndex, Mockito.times(1))
+                .isFree(Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getNextFreeTest() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokAvailabilityIndex.nextFree(1L, from, Duration.ofMinutes(90)))
+                .thenReturn(from.plusDays(1));
+
+        assertEquals(new ItemAvailabilityDto(1L, from.plusDays(1), from.plusDays(1).plusMinutes(90), true),
+                itemService.getNextFree(1L, from, 90));
+        assertThrows(ValidationException.class, () -> itemService.getNextFree(1L, from, 0));
+        Mockito.verifyNoInteractions(mokItemRepository, mokBookingRepository);
+    }
+
+    @Test
+    void createCommentTest() {
+        CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
 
         User user2 = new User(2L, "Vova", "vova@mail.ru");
         Booking lastBooking = new Booking(1L,
@@ -617,7 +781,7 @@ class DbItemServiceTest {
                 BookingStatus.APPROVED);
 
         Mockito
-                .when(mokBookingRepository.findLastBooker_IdAndItem_Id(2L, 1L))
+                .when(mokBookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(2L, 1L))
                 .thenReturn(Optional.of(lastBooking));
 
         Comment comment = new Comment(commentDto.getId(), commentDto.getText(), null, null, LocalDateTime.now());
@@ -639,92 +803,36 @@ class DbItemServiceTest {
                 .when(mokCommentMapper.toCommentDto(comment))
                 .thenReturn(commentDto);
         assertEquals(commentDto, itemService.addComment(1, 2, commentDto));
-        Mockito.verify(mokItemRepository, Mockito.times(1))
-                .existsById(1L);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+        Mockito.verify(mokEventPublisher, Mockito.times(1))
+                .publishEvent(new ItemChangedEvent(1L));
+        Mockito.verifyNoInteractions(mokItemRepository, mokUserRepository);
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findLastBooker_IdAndItem_Id(2L, 1L);
+                .findFirstByBooker_IdAndItem_IdOrderByEndAsc(2L, 1L);
         Mockito.verify(mokCommentMapper, Mockito.times(1))
                 .toComment(commentDto);
         Mockito.verify(mokCommentMapper, Mockito.times(1))
                 .toCommentDto(comment);
     }
 
-    @Test
-    void commentCreateWhenItemNonexistent() {
-        CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
-
-        Mockito
-                .when(mokItemRepository.existsById(1L))
-                .thenReturn(false);
-
-        assertThrows(StorageException.class, () -> itemService.addComment(1, 2, commentDto));
-        Mockito.verify(mokItemRepository, Mockito.times(1))
-                .existsById(1L);
-        Mockito.verify(mokUserRepository, Mockito.never())
-                .existsById(Mockito.anyLong());
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .findLastBooker_IdAndItem_Id(Mockito.anyLong(), Mockito.anyLong());
-    }
-
-    @Test
-    void commentCreateWhenUserNonexistent() {
-        CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
-
-        Mockito
-                .when(mokItemRepository.existsById(1L))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(false);
-
-        assertThrows(StorageException.class, () -> itemService.addComment(1, 2, commentDto));
-        Mockito.verify(mokItemRepository, Mockito.times(1))
-                .existsById(1L);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
-        Mockito.verify(mokBookingRepository, Mockito.never())
-                .findLastBooker_IdAndItem_Id(Mockito.anyLong(), Mockito.anyLong());
-    }
-
     @Test
     void commentCreateWhenBookingNonexistent() {
         CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
 
+        // Для несуществующих вещи или пользователя бронирования тоже не найдется
         Mockito
-                .when(mokItemRepository.existsById(1L))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
-
-        Mockito
-                .when(mokBookingRepository.findLastBooker_IdAndItem_Id(2L, 1L))
+                .when(mokBookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(2L, 1L))
                 .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> itemService.addComment(1, 2, commentDto));
-        Mockito.verify(mokItemRepository, Mockito.times(1))
-                .existsById(1L);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+        Mockito.verifyNoInteractions(mokItemRepository, mokUserRepository);
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findLastBooker_IdAndItem_Id(Mockito.anyLong(), Mockito.anyLong());
+                .findFirstByBooker_IdAndItem_IdOrderByEndAsc(Mockito.anyLong(), Mockito.anyLong());
     }
 
     @Test
     void createCommentWhenBookingNotFinished() {
         CommentDto commentDto = new CommentDto(1L, "Ваще балдеж", "Vova", null);
 
-        Mockito
-                .when(mokItemRepository.existsById(1L))
-                .thenReturn(true);
-        Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
-
         User user2 = new User(2L, "Vova", "vova@mail.ru");
         Booking lastBooking = new Booking(1L,
                 LocalDateTime.now().plusDays(2),
@@ -734,16 +842,13 @@ class DbItemServiceTest {
                 BookingStatus.APPROVED);
 
         Mockito
-                .when(mokBookingRepository.findLastBooker_IdAndItem_Id(2L, 1L))
+                .when(mokBookingRepository.findFirstByBooker_IdAndItem_IdOrderByEndAsc(2L, 1L))
                 .thenReturn(Optional.of(lastBooking));
 
         assertThrows(ValidationException.class, () -> itemService.addComment(1, 2, commentDto));
-        Mockito.verify(mokItemRepository, Mockito.times(1))
-                .existsById(1L);
-        Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+        Mockito.verifyNoInteractions(mokItemRepository, mokUserRepository);
         Mockito.verify(mokBookingRepository, Mockito.times(1))
-                .findLastBooker_IdAndItem_Id(Mockito.anyLong(), Mockito.anyLong());
+                .findFirstByBooker_IdAndItem_IdOrderByEndAsc(Mockito.anyLong(), Mockito.anyLong());
         Mockito.verify(mokCommentRepository, Mockito.never())
                 .save(Mockito.any(Comment.class));
     }
@@ -8,19 +8,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.RequestBookingDto;
+import ru.practicum.shareit.booking.service.DbBookingService;
+import ru.practicum.shareit.booking.status.BookingStatus;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoBookings;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.DbUserService;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
@@ -30,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class IntegrationDbItemServiceTest {
     private final DbItemService itemService;
     private final DbUserService userService;
+    private final DbBookingService bookingService;
     private final ItemRepository itemRepository;
     private final UserDto user = new UserDto(0L, "Vitya", "Vitya@mail.ru");
     private ItemDto itemDto;
@@ -127,4 +134,32 @@ class IntegrationDbItemServiceTest {
         assertThat(itemFromDB.getOwner(), equalTo(new User(1L, "Vitya", "Vitya@mail.ru")));
         assertThat(itemFromDB.getRequest(), nullValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getItemWithBookingSummaryTest() {
+        LocalDateTime now = LocalDateTime.now();
+        userService.createUser(user);
+        userService.createUser(new UserDto(0L, "Booker", "booker@mail.ru"));
+        itemService.createItem(itemDto, 1L);
+
+        ItemDtoBookings item = itemService.getItem(1L, 1L);
+        assertNull(item.getLastBooking());
+        assertNull(item.getNextBooking());
+
+        bookingService.create(new RequestBookingDto(1L, now.plusDays(1), now.plusDays(2)), 2L);
+        item = itemService.getItem(1L, 1L);
+        assertEquals(1L, item.getLastBooking().getId());
+        assertEquals(1L, item.getNextBooking().getId());
+
+        bookingService.create(new RequestBookingDto(1L, now.plusDays(3), now.plusDays(4)), 2L);
+        item = itemService.getItem(1L, 1L);
+        assertEquals(1L, item.getLastBooking().getId());
+        assertEquals(2L, item.getNextBooking().getId());
+        assertEquals(BookingStatus.WAITING, item.getNextBooking().getStatus());
+
+        bookingService.approveBooking(2L, 1L, true);
+        item = itemService.getItem(1L, 1L);
+        assertEquals(BookingStatus.APPROVED, item.getNextBooking().getStatus());
+        assertNull(itemService.getItem(1L, 2L).getNextBooking());
+    }
+}
@@ -6,10 +6,14 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.requests.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,12 +28,12 @@ class ItemRepositoryTest {
     private ItemRepository itemRepository;
 
     @Test
-    void findItemsTest() {
+    void findAvailableItemsTest() {
         User user = new User(null, "Vitya", "vitya@mail.ru");
-        Item item1 = new Item(null, "Вещь", "Супер", true, user, null);
+        Item item1 = new Item(null, "Вещь", "Супер", false, user, null);
         Item item2 = new Item(null, "Cупер", "Вещь то супер", true, user, null);
         Item item3 = new Item(null, "Чевапчич", "с гнильцой", true, user, null);
-        Item item4 = new Item(null, "Вещь", "Супер", false, user, null);
+        Item item4 = new Item(null, "Вещь", "Супер", true, user, null);
 
         em.persist(user);
         em.persist(item1);
@@ -37,20 +41,30 @@ class ItemRepositoryTest {
         em.persist(item3);
         em.persist(item4);
 
-        List<Item> itemsFromBd = itemRepository.find("вещь", PageRequest.of(0, 3));
-        assertEquals(List.of(item1, item2, item4), itemsFromBd);
+        List<ItemDto> itemsFromBd = itemRepository.findAvailable("вещь", PageRequest.of(0, 2));
+        assertEquals(List.of(toDto(item2), toDto(item4)), itemsFromBd);
 
-        itemsFromBd = itemRepository.find("вещь", PageRequest.of(0, 1));
-        assertEquals(List.of(item1), itemsFromBd);
+        itemsFromBd = itemRepository.findAvailable("вещь", PageRequest.of(1, 1));
+        assertEquals(List.of(toDto(item4)), itemsFromBd);
 
-        itemsFromBd = itemRepository.find("вещь", PageRequest.of(1, 3));
-        assertEquals(List.of(), itemsFromBd);
+        itemsFromBd = itemRepository.findAvailableAfter("вещь", item2.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of(toDto(item4)), itemsFromBd);
 
-        itemsFromBd = itemRepository.find("вещь", PageRequest.of(1, 1));
-        assertEquals(List.of(item2), itemsFromBd);
+        itemsFromBd = itemRepository.findAvailableAfter("вещь", item4.getId(), PageRequest.of(0, 2));
+        assertTrue(itemsFromBd.isEmpty());
+    }
 
-        itemsFromBd = itemRepository.find("ваПч", PageRequest.of(0, 1));
-        assertEquals(List.of(item3), itemsFromBd);
+    @Test
+    void findAvailableTrimsNameAndDescriptionTest() {
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        Item item = new Item(null, "  Дрель ", " Ударная  ", true, user, null);
+
+        em.persist(user);
+        em.persist(item);
+
+        ItemDto itemDto = itemRepository.findAvailable("дрель", PageRequest.of(0, 10)).get(0);
+        assertEquals("Дрель", itemDto.getName());
+        assertEquals("Ударная", itemDto.getDescription());
     }
 
     @Test
@@ -80,4 +94,86 @@ class ItemRepositoryTest {
         itemsFromBd = itemRepository.findAllByOwner_IdOrderById(99, PageRequest.of(0, 3));
         assertTrue(itemsFromBd.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByOwnerIdAfterTest() {
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        Item item1 = new Item(null, "Вещь", "Супер", true, user, null);
+        Item item2 = new Item(null, "Cупер", "Вещь то супер", true, user, null);
+        Item item3 = new Item(null, "Чевапчич", "с гнильцой", true, user, null);
+        em.persist(user);
+        em.persist(item1);
+        em.persist(item2);
+        em.persist(item3);
+
+        User user2 = new User(null, "Vova", "vova@mail.ru");
+        Item item4 = new Item(null, "Вещь", "Супер", true, user2, null);
+        em.persist(user2);
+        em.persist(item4);
+
+        List<Item> itemsFromBd = itemRepository.findAllByOwner_IdAndIdGreaterThanOrderById(
+                user.getId(), item1.getId(), PageRequest.of(0, 1));
+        assertEquals(List.of(item2), itemsFromBd);
+
+        itemsFromBd = itemRepository.findAllByOwner_IdAndIdGreaterThanOrderById(
+                user.getId(), item2.getId(), PageRequest.of(0, 10));
+        assertEquals(List.of(item3), itemsFromBd);
+
+        itemsFromBd = itemRepository.findAllByOwner_IdAndIdGreaterThanOrderById(
+                user.getId(), item3.getId(), PageRequest.of(0, 10));
+        assertTrue(itemsFromBd.isEmpty());
+    }
+
+    @Test
+    void findAllByRequestIdsTest() {
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        User requester = new User(null, "Vova", "vova@mail.ru");
+        ItemRequest request1 = new ItemRequest(null, "Хочется", requester, null, LocalDateTime.now());
+        ItemRequest request2 = new ItemRequest(null, "Не хочется", requester, null, LocalDateTime.now());
+        ItemRequest request3 = new ItemRequest(null, "Очень хочется", requester, null, LocalDateTime.now());
+        Item item1 = new Item(null, "Вещь", "Супер", true, user, request1);
+        Item item2 = new Item(null, "Вещь2", "Супер2", true, user, request2);
+        Item item3 = new Item(null, "Вещь3", "Супер3", true, user, request1);
+        Item item4 = new Item(null, "Вещь4", "Супер4", true, user, null);
+
+        em.persist(user);
+        em.persist(requester);
+        em.persist(request1);
+        em.persist(request2);
+        em.persist(request3);
+        em.persist(item1);
+        em.persist(item2);
+        em.persist(item3);
+        em.persist(item4);
+
+        assertEquals(List.of(item1, item2, item3),
+                itemRepository.findAllByRequest_IdInOrderById(List.of(request1.getId(), request2.getId())));
+        assertTrue(itemRepository.findAllByRequest_IdInOrderById(List.of(request3.getId())).isEmpty());
+    }
+
+    @Test
+    void findDtosByIdsTest() {
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        ItemRequest request = new ItemRequest(null, "Хочется", user, null, LocalDateTime.now());
+        Item item1 = new Item(null, " Вещь ", "Супер", true, user, request);
+        Item item2 = new Item(null, "Вещь2", "Супер2", false, user, null);
+
+        em.persist(user);
+        em.persist(request);
+        em.persist(item1);
+        em.persist(item2);
+        em.flush();
+        em.clear();
+
+        List<ItemDto> items = itemRepository.findDtosByIdIn(List.of(item1.getId(), item2.getId(), item2.getId() + 100));
+
+        // Название обрезается, как при маппинге сущности, вещь без запроса не теряется
+        assertEquals(Set.of(new ItemDto(item1.getId(), "Вещь", "Супер", true, request.getId()), toDto(item2)),
+                Set.copyOf(items));
+    }
+
+    private ItemDto toDto(Item item) {
+        return new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequest() != null ? item.getRequest().getId() : null);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Сравнение старого поиска (фильтр доступности в Java после загрузки страницы) с поиском по доступным вещам в БД
+// на каталоге, где доступна только каждая двадцатая вещь
+@DataJpaTest
+@Slf4j
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ItemSearchBenchmarkTest {
+    private static final int CATALOG_SIZE = 2000;
+    private static final int AVAILABLE_EVERY = 20;
+    private static final int PAGE_SIZE = 20;
+    // Старый поиск: все вещи, подходящие по тексту, доступность проверяется после загрузки
+    private static final String SEARCH_ALL = "select i from Item i " +
+            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))";
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        User user = new User(null, "Vitya", "vitya@mail.ru");
+        em.persist(user);
+
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            em.persist(new Item(null, "Дрель " + i, "Ударная", i % AVAILABLE_EVERY == 0, user, null));
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void searchWithAvailabilityInQueryTest() {
+        int availableCount = CATALOG_SIZE / AVAILABLE_EVERY;
+
+        long start = System.nanoTime();
+        List<Item> oldFirstPage = findAll("дрель", 0).stream()
+                .filter(Item::getAvailable)
+                .collect(Collectors.toList());
+        int oldQueries = 0;
+        int oldFound = 0;
+        List<Item> oldPage;
+
+        do {
+            oldPage = findAll("дрель", oldQueries++);
+            oldFound += (int) oldPage.stream().filter(Item::getAvailable).count();
+        } while (oldPage.size() == PAGE_SIZE);
+
+        long oldNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<ItemDto> newFirstPage = itemRepository.findAvailable("дрель", PageRequest.of(0, PAGE_SIZE));
+        int newQueries = 0;
+        List<ItemDto> found = new ArrayList<>();
+        List<ItemDto> page;
+        long afterId = 0;
+
+        do {
+            page = itemRepository.findAvailableAfter("дрель", afterId, PageRequest.of(0, PAGE_SIZE));
+            newQueries++;
+            found.addAll(page);
+
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        long newNanos = System.nanoTime() - start;
+
+        log.info("Поиск по {} вещам, доступных {}: старый путь {} запросов за {} мкс, " +
+                        "новый путь {} запросов за {} мкс",
+                CATALOG_SIZE, availableCount, oldQueries, oldNanos / 1000, newQueries, newNanos / 1000);
+
+        assertEquals(PAGE_SIZE / AVAILABLE_EVERY, oldFirstPage.size());
+        assertEquals(PAGE_SIZE, newFirstPage.size());
+        assertTrue(newFirstPage.stream().allMatch(ItemDto::getAvailable));
+        assertEquals(availableCount, oldFound);
+        assertEquals(availableCount, found.size());
+        assertTrue(found.stream().allMatch(ItemDto::getAvailable));
+        assertTrue(newQueries < oldQueries);
+    }
+
+    private List<Item> findAll(String text, int page) {
+        return em.getEntityManager().createQuery(SEARCH_ALL, Item.class)
+                .setParameter(1, text)
+                .setFirstResult(page * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.lookup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.QueryCounter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.status.BookingStatus;
+import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.requests.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import(EntityLookup.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class EntityLookupTest {
+    private User owner;
+    private User booker;
+    private Item item;
+    private Booking booking;
+    private ItemRequest request;
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityLookup entityLookup;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalDateTime now = LocalDateTime.now();
+        owner = new User(null, "Vitya", "vitya@mail.ru");
+        booker = new User(null, "Vova", "vova@mail.ru");
+        request = new ItemRequest(null, "Хочется", booker, null, now);
+        item = new Item(null, "Вещь", "Супер", true, owner, null);
+        booking = new Booking(null, now.minusDays(2), now.minusDays(1), item, booker, BookingStatus.APPROVED);
+        em.persist(owner);
+        em.persist(booker);
+        em.persist(request);
+        em.persist(item);
+        em.persist(booking);
+        em.flush();
+        em.clear();
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @Test
+    void getEntitiesInOneQueryTest() {
+        User user = queryCounter.assertMaxQueries(1, () -> entityLookup.getUser(owner.getId(), "Нет пользователя"));
+        assertEquals(owner.getEmail(), user.getEmail());
+
+        em.clear();
+        Item foundItem = queryCounter.assertMaxQueries(1, () -> entityLookup.getItem(item.getId(), "Нет вещи"));
+        assertEquals(owner.getId(), foundItem.getOwner().getId());
+
+        em.clear();
+        Booking foundBooking = queryCounter.assertMaxQueries(1,
+                () -> entityLookup.getBooking(booking.getId(), "Нет бронирования"));
+        queryCounter.assertNoQueries(() -> {
+            foundBooking.getItem().getOwner().getName();
+            foundBooking.getBooker().getName();
+        });
+    }
+
+    @Test
+    void getNonexistentEntitiesTest() {
+        StorageException exception = assertThrows(StorageException.class,
+                () -> entityLookup.getUser(100L, "Нет пользователя"));
+        assertEquals("Нет пользователя", exception.getMessage());
+
+        assertThrows(StorageException.class, () -> entityLookup.getItem(100L, "Нет вещи"));
+        assertThrows(StorageException.class, () -> entityLookup.getBooking(100L, "Нет бронирования"));
+    }
+
+    @Test
+    void repeatedLookupsInRequestHitMemoTest() {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        try {
+            User user = queryCounter.assertMaxQueries(1, () -> entityLookup.getUser(owner.getId(), "Нет пользователя"));
+            assertSame(user, queryCounter.assertMaxQueries(0,
+                    () -> entityLookup.getUser(owner.getId(), "Нет пользователя")));
+
+            // Бронирование приносит с собой вещь и автора, дальше в запросе они уже не читаются
+            em.clear();
+            entityLookup.getBooking(booking.getId(), "Нет бронирования");
+            queryCounter.assertNoQueries(() -> {
+                entityLookup.getItem(item.getId(), "Нет вещи");
+                entityLookup.getUser(booker.getId(), "Нет пользователя");
+            });
+
+            RequestEntityMemo memo = (RequestEntityMemo) attributes.getAttribute(RequestEntityMemo.class.getName(),
+                    ServletRequestAttributes.SCOPE_REQUEST);
+            assertEquals(3, memo.hitCount());
+            assertEquals(1, memo.missCount());
+        } finally {
+            attributes.requestCompleted();
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // Вне запроса памятки нет, пользователь снова читается из БД
+        em.clear();
+        queryCounter.assertMaxQueries(1, () -> entityLookup.getUser(owner.getId(), "Нет пользователя"));
+        assertEquals(1, queryCounter.count());
+    }
+
+    @Test
+    void saveWithRequestReferenceTest() {
+        Item newItem = new Item(null, "Дрель", "Сверлит", true, em.find(User.class, owner.getId()), null);
+
+        // Ссылка на запрос не загружает его, строка запроса читается только внешним ключом при вставке.
+        // Кроме вставки в счет может попасть выборка следующего блока id из items_seq
+        queryCounter.assertNoQueries(() -> newItem.setRequest(entityLookup.requestReference(request.getId())));
+        Item savedItem = queryCounter.assertMaxQueries(2, () -> entityLookup.saveReferencing(itemRepository,
+                newItem, Item.REQUEST_FOREIGN_KEY, "Нет запроса"));
+        assertEquals(0, queryCounter.loads(ItemRequest.class));
+
+        em.clear();
+        assertEquals(request.getId(), em.find(Item.class, savedItem.getId()).getRequest().getId());
+    }
+
+    @Test
+    void saveWithNonexistentRequestReferenceTest() {
+        Item newItem = new Item(null, "Дрель", "Сверлит", true, em.find(User.class, owner.getId()), null);
+        newItem.setRequest(entityLookup.requestReference(100L));
+
+        StorageException exception = assertThrows(StorageException.class, () -> entityLookup.saveReferencing(
+                itemRepository, newItem, Item.REQUEST_FOREIGN_KEY, "Нет запроса"));
+        assertEquals("Нет запроса", exception.getMessage());
+    }
+
+    @Test
+    void saveWithOtherViolationRethrowsTest() {
+        Item newItem = new Item(null, "Дрель", "Сверлит", true, em.getEntityManager().getReference(User.class, 100L),
+                null);
+        newItem.setRequest(entityLookup.requestReference(request.getId()));
+
+        // Нарушение другого внешнего ключа не выдается за отсутствие запроса
+        assertThrows(DataIntegrityViolationException.class, () -> entityLookup.saveReferencing(
+                itemRepository, newItem, Item.REQUEST_FOREIGN_KEY, "Нет запроса"));
+    }
+}
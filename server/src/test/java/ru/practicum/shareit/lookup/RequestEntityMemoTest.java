@@ -0,0 +1,67 @@
+package ru.practicum.shareit.lookup;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestEntityMemoTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final RequestEntityMemo memo = new RequestEntityMemo();
+
+    private Optional<User> loadUser(Long id) {
+        loads.incrementAndGet();
+        return Optional.of(new User(id, "Vitya", "vitya@mail.ru"));
+    }
+
+    @Test
+    void hitAndMissTest() {
+        User user = memo.get(User.class, 1L, this::loadUser).orElseThrow();
+
+        assertSame(user, memo.get(User.class, 1L, this::loadUser).orElseThrow());
+        memo.get(User.class, 2L, this::loadUser);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, memo.hitCount());
+        assertEquals(2, memo.missCount());
+    }
+
+    @Test
+    void typesDoNotShareIdsTest() {
+        memo.get(User.class, 1L, this::loadUser);
+        Optional<Item> item = memo.get(Item.class, 1L,
+                id -> Optional.of(new Item(id, "Вещь", "Супер", true, null, null)));
+
+        assertEquals("Вещь", item.orElseThrow().getName());
+        assertEquals(0, memo.hitCount());
+    }
+
+    @Test
+    void absentEntityIsNotRememberedTest() {
+        assertTrue(memo.get(User.class, 1L, id -> Optional.empty()).isEmpty());
+        memo.get(User.class, 1L, this::loadUser);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, memo.missCount());
+    }
+
+    @Test
+    void putAndRemoveTest() {
+        memo.get(User.class, 1L, this::loadUser);
+        User updated = new User(1L, "Up", "date@mail.ru");
+
+        memo.put(User.class, 1L, updated);
+        assertSame(updated, memo.get(User.class, 1L, this::loadUser).orElseThrow());
+
+        memo.remove(User.class, 1L);
+        memo.get(User.class, 1L, this::loadUser);
+
+        assertEquals(2, loads.get());
+    }
+}
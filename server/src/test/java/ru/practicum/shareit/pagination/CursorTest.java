@@ -0,0 +1,40 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exeption.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+    @Test
+    void encodeAndDecodeTest() {
+        LocalDateTime time = LocalDateTime.of(2022, 10, 1, 12, 30, 15, 123456000);
+
+        assertEquals(Cursor.of(15L), Cursor.decode(Cursor.of(15L).encode()));
+        assertEquals(Cursor.of(time, 7L), Cursor.decode(Cursor.of(time, 7L).encode()));
+        assertEquals(time, Cursor.decode(Cursor.of(time, 7L).encode()).requireTime());
+    }
+
+    @Test
+    void decodeInvalidCursorTest() {
+        assertThrows(ValidationException.class, () -> Cursor.decode("не курсор"));
+        assertThrows(ValidationException.class, () -> Cursor.decode("YWJj"));
+        assertThrows(ValidationException.class, () -> Cursor.decode(Cursor.of(15L).encode()).requireTime());
+    }
+
+    @Test
+    void setNextTest() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Cursor.setNext(response, List.of(1L, 2L), 3, Cursor::of);
+        assertNull(response.getHeader(Cursor.NEXT_CURSOR_HEADER));
+
+        Cursor.setNext(response, List.of(1L, 2L), 2, Cursor::of);
+        assertEquals(Cursor.of(2L).encode(), response.getHeader(Cursor.NEXT_CURSOR_HEADER));
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.service.RequestService;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -22,6 +23,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -138,6 +140,29 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$.[0].created", notNullValue()));
     }
 
+    @Test
+    void getAllRequestsWithCursorTest() throws Exception {
+        Mockito
+                .when(mokRequestService.getAllRequestsAfter(now, 5L, 1, 1L))
+                .thenReturn(List.of(itemRequestDtoFromService));
+
+        mvc.perform(get("/requests/all?size=1&cursor=" + Cursor.of(now, 5L).encode())
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(itemRequestDtoFromService.getCreated(), itemRequestDtoFromService.getId()).encode()))
+                .andExpect(jsonPath("$.[0].id", is((int) itemRequestDtoFromService.getId())));
+
+        mvc.perform(get("/requests/all?size=1&cursor=abc")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(mokRequestService, Mockito.never())
+                .getAllRequestPagination(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyLong());
+    }
+
     @Test
     void getRequestTest() throws Exception {
         Mockito
@@ -139,4 +139,25 @@ class DefaultRequestMapperTest {
         assertNull(mappedItemRequestDto.getItems());
         assertEquals(now, mappedItemRequestDto.getCreated());
     }
-}
\ No newline at end of file
+
+    @Test
+    void toItemRequestDtoWithLoadedItemsTest() {
+        Mockito
+                .when(mokUserMapper.toUserDto(requester))
+                .thenReturn(requesterDto);
+
+        Mockito
+                .when(mokItemMapper.toItemDto(item))
+                .thenReturn(itemDto);
+
+        itemRequest.setItems(null);
+        ItemRequestDto mappedItemRequestDto = defaultRequestMapper.toItemRequestDto(itemRequest, List.of(item));
+
+        assertEquals(itemRequest.getId(), mappedItemRequestDto.getId());
+        assertEquals(requesterDto, mappedItemRequestDto.getRequester());
+        assertEquals(List.of(itemDto), mappedItemRequestDto.getItems());
+
+        mappedItemRequestDto = defaultRequestMapper.toItemRequestDto(itemRequest, List.of());
+        assertTrue(mappedItemRequestDto.getItems().isEmpty());
+    }
+}
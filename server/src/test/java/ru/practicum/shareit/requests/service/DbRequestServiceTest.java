@@ -3,15 +3,18 @@ package ru.practicum.shareit.requests.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exeption.StorageException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
 import ru.practicum.shareit.requests.dto.ItemRequestDto;
 import ru.practicum.shareit.requests.mapper.RequestMapper;
 import ru.practicum.shareit.requests.model.ItemRequest;
@@ -45,17 +48,29 @@ class DbRequestServiceTest {
     @Mock
     private RequestsRepository mokRequestsRepository;
 
+    @Mock
+    private ItemRepository mokItemRepository;
+
+    @Mock
+    private BookingRepository mokBookingRepository;
+
     @Mock
     private RequestMapper mokRequestMapper;
 
-    @InjectMocks
     private DbRequestService requestService;
 
     @BeforeEach
     void beforeEach() {
+        requestService = new DbRequestService(
+                new EntityLookup(mokUserRepository, mokItemRepository, mokBookingRepository, mokRequestsRepository),
+                mokRequestsRepository,
+                mokItemRepository,
+                mokRequestMapper);
         now = LocalDateTime.now();
         itemRequestFromMapper = new ItemRequest(0L, "Хочется", null, null, null);
         itemRequestFromDb = new ItemRequest(1L, "Хочется", requester, List.of(item), now);
+        // Ссылка на запрос без коллекции вещей, чтобы equals и toString не уходили в цикл
+        item.setRequest(new ItemRequest(1L, "Хочется", requester, null, now));
         itemRequestDto = new ItemRequestDto(0L, "Хочется", null, null, null);
         itemRequestDtoFromMapper = new ItemRequestDto(1L, "Хочется", requesterDto, List.of(itemDto), now);
     }
@@ -116,15 +131,19 @@ class DbRequestServiceTest {
     @Test
     void getOwnerRequestsTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findAllByRequester_IdIs(Mockito.anyLong(), Mockito.any(Sort.class)))
                 .thenReturn(List.of(itemRequestFromDb));
 
         Mockito
-                .when(mokRequestMapper.toItemRequestDto(Mockito.any(ItemRequest.class)))
+                .when(mokItemRepository.findAllByRequest_IdInOrderById(List.of(1L)))
+                .thenReturn(List.of(item));
+
+        Mockito
+                .when(mokRequestMapper.toItemRequestDto(itemRequestFromDb, List.of(item)))
                 .thenReturn(itemRequestDtoFromMapper);
 
         List<ItemRequestDto> requests = requestService.getOwnerRequests(2L);
@@ -133,7 +152,7 @@ class DbRequestServiceTest {
         assertEquals(itemRequestDtoFromMapper, requests.get(0));
 
         Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+                .findById(2L);
 
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
                 .findAllByRequester_IdIs(Mockito.anyLong(), Mockito.any(Sort.class));
@@ -142,8 +161,8 @@ class DbRequestServiceTest {
     @Test
     void getOwnerRequestsWhenNotHaveRequestsTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findAllByRequester_IdIs(Mockito.anyLong(), Mockito.any(Sort.class)))
@@ -154,17 +173,20 @@ class DbRequestServiceTest {
         assertTrue(requests.isEmpty());
 
         Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+                .findById(2L);
 
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
                 .findAllByRequester_IdIs(Mockito.anyLong(), Mockito.any(Sort.class));
+
+        Mockito.verify(mokItemRepository, Mockito.never())
+                .findAllByRequest_IdInOrderById(Mockito.anyCollection());
     }
 
     @Test
     void getOwnerRequestsWhenRequesterNotExistTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> requestService.getOwnerRequests(2L));
 
@@ -175,15 +197,19 @@ class DbRequestServiceTest {
     @Test
     void getAllRequestPaginationTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findAllByRequester_IdNot(Mockito.anyLong(), Mockito.any(Pageable.class)))
                 .thenReturn(List.of(itemRequestFromDb));
 
         Mockito
-                .when(mokRequestMapper.toItemRequestDto(Mockito.any(ItemRequest.class)))
+                .when(mokItemRepository.findAllByRequest_IdInOrderById(List.of(1L)))
+                .thenReturn(List.of(item));
+
+        Mockito
+                .when(mokRequestMapper.toItemRequestDto(itemRequestFromDb, List.of(item)))
                 .thenReturn(itemRequestDtoFromMapper);
 
         List<ItemRequestDto> requests = requestService.getAllRequestPagination(0, 10, 2L);
@@ -192,7 +218,7 @@ class DbRequestServiceTest {
         assertEquals(itemRequestDtoFromMapper, requests.get(0));
 
         Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+                .findById(2L);
 
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
                 .findAllByRequester_IdNot(Mockito.anyLong(), Mockito.any(Pageable.class));
@@ -201,8 +227,8 @@ class DbRequestServiceTest {
     @Test
     void getAllRequestPaginationWhenUserNotExistTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> requestService.getAllRequestPagination(0, 10, 2L));
 
@@ -213,8 +239,8 @@ class DbRequestServiceTest {
     @Test
     void getAllRequestPaginationWhenNotHaveRequestsTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findAllByRequester_IdNot(Mockito.anyLong(), Mockito.any(Pageable.class)))
@@ -225,17 +251,52 @@ class DbRequestServiceTest {
         assertTrue(requests.isEmpty());
 
         Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+                .findById(2L);
 
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
                 .findAllByRequester_IdNot(Mockito.anyLong(), Mockito.any(Pageable.class));
+
+        Mockito.verify(mokItemRepository, Mockito.never())
+                .findAllByRequest_IdInOrderById(Mockito.anyCollection());
+    }
+
+    @Test
+    void getAllRequestsAfterTest() {
+        Mockito
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
+
+        Mockito
+                .when(mokRequestsRepository.findAllByRequester_IdNotAfter(2L, now, 5L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(itemRequestFromDb));
+
+        Mockito
+                .when(mokItemRepository.findAllByRequest_IdInOrderById(List.of(1L)))
+                .thenReturn(List.of(item));
+
+        Mockito
+                .when(mokRequestMapper.toItemRequestDto(itemRequestFromDb, List.of(item)))
+                .thenReturn(itemRequestDtoFromMapper);
+
+        assertEquals(List.of(itemRequestDtoFromMapper), requestService.getAllRequestsAfter(now, 5L, 10, 2L));
+        Mockito.verify(mokRequestsRepository, Mockito.never())
+                .findAllByRequester_IdNot(Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    void getAllRequestsAfterWhenUserNotExistTest() {
+        Mockito
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.empty());
+
+        assertThrows(StorageException.class, () -> requestService.getAllRequestsAfter(now, 5L, 10, 2L));
     }
 
     @Test
     void getRequestTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findById(1L))
@@ -248,7 +309,7 @@ class DbRequestServiceTest {
         assertEquals(itemRequestDtoFromMapper, requestService.getRequest(1L, 2L));
 
         Mockito.verify(mokUserRepository, Mockito.times(1))
-                .existsById(2L);
+                .findById(2L);
 
         Mockito.verify(mokRequestsRepository, Mockito.times(1))
                 .findById(1L);
@@ -257,8 +318,8 @@ class DbRequestServiceTest {
     @Test
     void getRequestWhenUserNotExistTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.empty());
 
         assertThrows(StorageException.class, () -> requestService.getRequest(1L, 2L));
 
@@ -269,8 +330,8 @@ class DbRequestServiceTest {
     @Test
     void getRequestWhenRequestNotExistTest() {
         Mockito
-                .when(mokUserRepository.existsById(2L))
-                .thenReturn(true);
+                .when(mokUserRepository.findById(2L))
+                .thenReturn(Optional.of(requester));
 
         Mockito
                 .when(mokRequestsRepository.findById(1L))
@@ -9,7 +9,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exeption.StorageException;
-import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.DbItemService;
 import ru.practicum.shareit.item.storage.ItemRepository;
@@ -37,46 +36,45 @@ class IntegrationDbRequestServiceTest {
     private final DbItemService itemService;
     private final DbRequestService requestService;
     private final EntityManager entityManager;
-    private final ItemRequestDto itemRequestDto = new ItemRequestDto(0L, "Хочется", null, null, null);
-    private final User user = new User(null, "Vitya", "vitya@mail.ru");
-    private final User requester = new User(null, "Vova", "vova@mail.ru");
-    private final ItemDto itemDto = new ItemDto(0L, "Вещь", "Супер", true, 1L);
+    private User user;
+    private User requester;
     private LocalDateTime now;
     private ItemRequest itemRequest;
     private Item item;
 
     @BeforeEach
     void beforeEach() {
-        userRepository.save(user);
-        userRepository.save(requester);
+        // id выдают последовательности блоками, поэтому тесты берут их из сохраненных сущностей
+        user = userRepository.save(new User(null, "Vitya", "vitya@mail.ru"));
+        requester = userRepository.save(new User(null, "Vova", "vova@mail.ru"));
         now = LocalDateTime.now();
-        itemRequest = new ItemRequest(null, "Хочется", requester, null, now);
-        requestsRepository.save(itemRequest);
-        item = new Item(1L, "Вещь", "Супер", true, user, itemRequest);
-        itemRepository.save(item);
-        // Завершение транзакции, чтобы hibernate брал сущности не из кэша
+        itemRequest = requestsRepository.save(new ItemRequest(null, "Хочется", requester, null, now));
+        item = itemRepository.save(new Item(null, "Вещь", "Супер", true, user, itemRequest));
+        // Завершение транзакции, чтобы hibernate брал сущности не из кэша. С id из последовательности
+        // вставка откладывается до сброса, поэтому перед очисткой сессии изменения записываются
+        entityManager.flush();
         entityManager.clear();
     }
 
     @Test
     void getOwnerRequestTest() {
-        List<ItemRequestDto> requests = requestService.getOwnerRequests(2L);
+        List<ItemRequestDto> requests = requestService.getOwnerRequests(requester.getId());
 
         assertNotNull(requests);
         assertEquals(1, requests.size());
-        assertEquals(1L, requests.get(0).getId());
+        assertEquals(itemRequest.getId(), requests.get(0).getId());
         assertEquals(itemRequest.getDescription(), requests.get(0).getDescription());
-        assertEquals(2L, requests.get(0).getRequester().getId());
+        assertEquals(requester.getId(), requests.get(0).getRequester().getId());
         assertEquals(requester.getName(), requests.get(0).getRequester().getName());
-        assertEquals(1L, requests.get(0).getItems().get(0).getId());
+        assertEquals(item.getId(), requests.get(0).getItems().get(0).getId());
         assertEquals(item.getName(), requests.get(0).getItems().get(0).getName());
-        assertEquals(1L, requests.get(0).getItems().get(0).getRequestId());
+        assertEquals(itemRequest.getId(), requests.get(0).getItems().get(0).getRequestId());
         assertEquals(now.toLocalDate(), requests.get(0).getCreated().toLocalDate());
     }
 
     @Test
     void getOwnerRequestWhenNotHaveRequestsAndNotOwnerTest() {
-        List<ItemRequestDto> requests = requestService.getOwnerRequests(1L);
+        List<ItemRequestDto> requests = requestService.getOwnerRequests(user.getId());
 
         assertNotNull(requests);
         assertTrue(requests.isEmpty());
@@ -84,6 +82,6 @@ class IntegrationDbRequestServiceTest {
 
     @Test
     void getOwnerRequestWhenUserNotExistTest() {
-        assertThrows(StorageException.class, () -> requestService.getOwnerRequests(5L));
+        assertThrows(StorageException.class, () -> requestService.getOwnerRequests(requester.getId() + 1000));
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.requests.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.QueryCounter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapperDefault;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.lookup.EntityLookup;
+import ru.practicum.shareit.requests.dto.ItemRequestDto;
+import ru.practicum.shareit.requests.mapper.DefaultRequestMapper;
+import ru.practicum.shareit.requests.mapper.RequestMapper;
+import ru.practicum.shareit.requests.model.ItemRequest;
+import ru.practicum.shareit.requests.storage.RequestsRepository;
+import ru.practicum.shareit.user.mapper.UserMapperDefault;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Сравнение старой ленты запросов (вещи-ответы загружаются ленивой коллекцией каждого запроса)
+// с загрузкой вещей одним запросом на страницу: 100 запросов по 10 ответов
+@Slf4j
+@DataJpaTest
+@Import({DbRequestService.class, EntityLookup.class, DefaultRequestMapper.class, UserMapperDefault.class,
+        ItemMapperDefault.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class RequestFeedBenchmarkTest {
+    private static final int REQUESTS = 100;
+    private static final int ANSWERS = 10;
+
+    private User user;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RequestsRepository requestsRepository;
+
+    @Autowired
+    private RequestMapper requestMapper;
+
+    @Autowired
+    private DbRequestService requestService;
+
+    @BeforeEach
+    void beforeEach() {
+        LocalDateTime now = LocalDateTime.now();
+        user = new User(null, "Vitya", "vitya@mail.ru");
+        em.persist(user);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            User requester = new User(null, "Vova" + i, "vova" + i + "@mail.ru");
+            ItemRequest request = new ItemRequest(null, "Хочется " + i, requester, null, now.minusMinutes(i));
+            em.persist(requester);
+            em.persist(request);
+
+            for (int j = 0; j < ANSWERS; j++) {
+                em.persist(new Item(null, "Вещь " + i + "-" + j, "Супер", true, user, request));
+            }
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void requestFeedWithBatchedItemsTest() {
+        QueryCounter queryCounter = new QueryCounter(entityManagerFactory);
+
+        long start = System.nanoTime();
+        List<ItemRequestDto> oldFeed = queryCounter.measure(() -> requestsRepository
+                .findAllByRequester_IdNot(user.getId(),
+                        PageRequest.of(0, REQUESTS, Sort.by(Sort.Direction.DESC, "created"))).stream()
+                .map(requestMapper::toItemRequestDto)
+                .collect(Collectors.toList()));
+        long oldQueries = queryCounter.count();
+        long oldNanos = System.nanoTime() - start;
+
+        em.clear();
+
+        start = System.nanoTime();
+        // Проверка пользователя, страница запросов и вещи-ответы для всей страницы
+        List<ItemRequestDto> newFeed = queryCounter.assertMaxQueries(3,
+                () -> requestService.getAllRequestPagination(0, REQUESTS, user.getId()));
+        long newQueries = queryCounter.count();
+        long newNanos = System.nanoTime() - start;
+
+        log.info("Лента из {} запросов по {} ответов: старый путь {} SQL-запросов за {} мкс, " +
+                        "новый путь {} SQL-запросов за {} мкс",
+                REQUESTS, ANSWERS, oldQueries, oldNanos / 1000, newQueries, newNanos / 1000);
+
+        assertEquals(REQUESTS, oldFeed.size());
+        assertEquals(REQUESTS, newFeed.size());
+        assertTrue(oldQueries > REQUESTS);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(oldFeed.get(i).getId(), newFeed.get(i).getId());
+            assertEquals(oldFeed.get(i).getRequester(), newFeed.get(i).getRequester());
+            assertEquals(ANSWERS, newFeed.get(i).getItems().size());
+            assertEquals(itemIds(oldFeed.get(i)), itemIds(newFeed.get(i)));
+        }
+    }
+
+    private Set<Long> itemIds(ItemRequestDto request) {
+        return request.getItems().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -139,4 +139,36 @@ class RequestsRepositoryTest {
         assertTrue(requests1.get(0).getItems().isEmpty());
         assertEquals(itemRequest2.getCreated().toLocalDate(), requests1.get(0).getCreated().toLocalDate());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByRequester_IdNotAfterTest() {
+        // Наносекунды не помещаются в столбец и отбрасываются при сохранении, курсор строится по сущности
+        LocalDateTime created = now.withNano(123_456_789);
+        itemRequest = new ItemRequest(null, "Хочется", requester, null, created);
+        ItemRequest itemRequest1 = new ItemRequest(null, "Не Хочется", requester, null, created.plusDays(1));
+        ItemRequest itemRequest2 = new ItemRequest(null, "Тоже Хочется", requester, null, created.plusDays(1));
+        ItemRequest itemRequest3 = new ItemRequest(null, "Очень Не Хочется", user, null, created.plusDays(2));
+
+        em.persist(itemRequest);
+        em.persist(itemRequest1);
+        em.persist(itemRequest2);
+        em.persist(itemRequest3);
+        em.flush();
+        em.clear();
+
+        List<ItemRequest> requests = requestsRepository.findAllByRequester_IdNotAfter(
+                user.getId(), now.plusDays(3), Long.MAX_VALUE, PageRequest.of(0, 2));
+        assertEquals(2, requests.size());
+        assertEquals(itemRequest2.getId(), requests.get(0).getId());
+        assertEquals(itemRequest1.getId(), requests.get(1).getId());
+
+        requests = requestsRepository.findAllByRequester_IdNotAfter(
+                user.getId(), itemRequest1.getCreated(), itemRequest1.getId(), PageRequest.of(0, 2));
+        assertEquals(1, requests.size());
+        assertEquals(itemRequest.getId(), requests.get(0).getId());
+
+        requests = requestsRepository.findAllByRequester_IdNotAfter(
+                user.getId(), itemRequest.getCreated(), itemRequest.getId(), PageRequest.of(0, 2));
+        assertTrue(requests.isEmpty());
+    }
+}
@@ -3,7 +3,11 @@ package ru.practicum.shareit.user.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exeption.StorageException;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.EntityLookup;
+import ru.practicum.shareit.requests.storage.RequestsRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -26,7 +30,10 @@ class DbUserServiceTest {
     void beforeEach() {
         mokUserMapper = Mockito.mock(UserMapper.class);
         mokUserRepository = Mockito.mock(UserRepository.class);
-        userService = new DbUserService(mokUserMapper, mokUserRepository);
+        userService = new DbUserService(mokUserMapper, mokUserRepository, new EntityLookup(mokUserRepository,
+                Mockito.mock(ItemRepository.class),
+                Mockito.mock(BookingRepository.class),
+                Mockito.mock(RequestsRepository.class)));
         userDto = new UserDto(0L, "Petya", "Petya@mail.ru");
     }
 
@@ -40,10 +47,6 @@ class DbUserServiceTest {
                 .when(mokUserMapper.toUserDto(Mockito.any(User.class)))
                 .thenReturn(new UserDto(1L, "Petya", "Petya@mail.ru"));
 
-        Mockito
-                .when(mokUserRepository.existsById(0L))
-                .thenReturn(false);
-
         Mockito
                 .when(mokUserRepository.save(Mockito.any(User.class)))
                 .thenReturn(new User(1L, "Petya", "Petya@mail.ru"));
@@ -57,13 +60,7 @@ class DbUserServiceTest {
 
         userDto.setId(1);
         assertThrows(ValidationException.class, () -> userService.createUser(userDto));
-
-        Mockito
-                .when(mokUserRepository.existsById(0L))
-                .thenReturn(true);
-
-        userDto.setId(0);
-        assertThrows(ValidationException.class, () -> userService.createUser(userDto));
+        Mockito.verifyNoInteractions(mokUserRepository);
     }
 
     @Test
@@ -71,10 +68,6 @@ class DbUserServiceTest {
         userDto.setName("Up");
         userDto.setEmail("Date@mail.ru");
 
-        Mockito
-                .when(mokUserRepository.existsById(1L))
-                .thenReturn(true);
-
         Mockito
                 .when(mokUserMapper.toUser(userDto))
                 .thenReturn(new User(1L, "Up", "Date@mail.ru"));
@@ -97,8 +90,8 @@ class DbUserServiceTest {
     @Test
     void updateWhenNotExistId() {
         Mockito
-                .when(mokUserRepository.existsById(1L))
-                .thenReturn(false);
+                .when(mokUserRepository.findById(1L))
+                .thenReturn(Optional.empty());
 
         assertThrows(ValidationException.class, () -> userService.updateUser(userDto, 1L));
     }
@@ -108,10 +101,6 @@ class DbUserServiceTest {
         userDto.setName(null);
         userDto.setEmail(null);
 
-        Mockito
-                .when(mokUserRepository.existsById(1L))
-                .thenReturn(true);
-
         Mockito
                 .when(mokUserMapper.toUser(userDto))
                 .thenReturn(new User(0L, null, null));
@@ -136,30 +125,20 @@ class DbUserServiceTest {
 
     @Test
     void getAllUsers() {
-        User user1 = new User(1L, "Vitya", "vitya@mail.ru");
-        User user2 = new User(2L, "Vova", "vova@mail.ru");
-        User user3 = new User(3L, "Petya", "petya@mail.ru");
+        List<UserDto> users = List.of(
+                new UserDto(1L, "Vitya", "vitya@mail.ru"),
+                new UserDto(2L, "Vova", "vova@mail.ru"),
+                new UserDto(3L, "Petya", "petya@mail.ru"));
 
         Mockito
-                .when(mokUserRepository.findAll())
-                .thenReturn(List.of(user1, user2, user3));
-        Mockito
-                .when(mokUserMapper.toUserDto(user1))
-                .thenReturn(new UserDto(user1.getId(), user1.getName(), user1.getEmail()));
-        Mockito
-                .when(mokUserMapper.toUserDto(user2))
-                .thenReturn(new UserDto(user2.getId(), user2.getName(), user2.getEmail()));
-        Mockito
-                .when(mokUserMapper.toUserDto(user3))
-                .thenReturn(new UserDto(user3.getId(), user3.getName(), user3.getEmail()));
+                .when(mokUserRepository.findAllDtos())
+                .thenReturn(users);
 
-        assertEquals(List.of(
-                        new UserDto(1L, "Vitya", "vitya@mail.ru"),
-                        new UserDto(2L, "Vova", "vova@mail.ru"),
-                        new UserDto(3L, "Petya", "petya@mail.ru")),
-                userService.getAllUsers());
+        assertEquals(users, userService.getAllUsers());
 
-        Mockito.verify(mokUserMapper, Mockito.times(3))
+        Mockito.verify(mokUserRepository, Mockito.never())
+                .findAll();
+        Mockito.verify(mokUserMapper, Mockito.never())
                 .toUserDto(Mockito.any(User.class));
     }
 
@@ -7,8 +7,11 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -41,20 +44,36 @@ class UserRepositoryTest {
 
         assertEquals(2L, userFromBd2.getId());
 
+        // Вставка откладывается до сброса сессии, нарушение ограничения видно при нем
         user.setId(0L);
-        assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(user),
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(user),
                 "не соблюдается уникальность email");
     }
 
     @Test
     void saveUserWithNullFieldsTest() {
         user.setName(null);
-        assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(user),
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(user),
                 "Имя не может быть null");
+        em.clear();
 
         user.setName("Vitya");
         user.setEmail(null);
-        assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(user),
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(user),
                 "email не может быть null");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllDtosTest() {
+        User user2 = new User(null, "Vova", "vova@mail.ru");
+        user.setId(null);
+        em.persist(user2);
+        em.persist(user);
+        em.flush();
+        em.clear();
+
+        assertEquals(List.of(new UserDto(user2.getId(), "Vova", "vova@mail.ru"),
+                        new UserDto(user.getId(), "Vitya", "vitya@mail.ru")),
+                userRepository.findAllDtos());
+    }
+}